@@ -0,0 +1,140 @@
+import benchmarks.GameTarget;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded board fixtures for the JMH benchmarks, see benchmarks.GameTarget for
+ * why this class sits in the unnamed package.
+ *
+ * Fixture boards are filled with part of a complete tiling of the empty board,
+ * picked in seeded random order, so every fill level is reachable and stays
+ * identical between runs.
+ */
+public class BenchmarkTarget implements GameTarget {
+    private static final int PROBES = 1024;
+    private static final int POOL_SIZE = 3;
+    private static final PentominoType[] TYPES = PentominoType.values();
+
+    private final GameBoard board = new GameBoard();
+    private final GameBoard scratchBoard = new GameBoard();
+    private final List<Piece> pool = new ArrayList<>();
+    private final PiecePool piecePool;
+
+    private final Piece[] probePieces = new Piece[PROBES];
+    private final int[] probeRows = new int[PROBES];
+    private final int[] probeCols = new int[PROBES];
+
+    private final Piece[] sequencePieces;
+    private final int[] sequenceRows;
+    private final int[] sequenceCols;
+
+    private final Piece rotatingPiece;
+
+    public BenchmarkTarget(long seed, Fill fill) {
+        Random random = new Random(seed);
+
+        TilingSolver solver = new TilingSolver(board.getRows(), board.getCols(), false);
+        solver.solve(board, 0);
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < solver.getPlacementCount(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, random);
+
+        int total = order.size();
+        int placed = fill == Fill.EMPTY ? 0 : fill == Fill.HALF ? total / 2 : total * 9 / 10;
+
+        sequencePieces = new Piece[total];
+        sequenceRows = new int[total];
+        sequenceCols = new int[total];
+        for (int i = 0; i < total; i++) {
+            int p = order.get(i);
+            sequencePieces[i] = pieceFor(solver.getPlacementOrientation(p));
+            sequenceRows[i] = solver.getPlacementRow(p);
+            sequenceCols[i] = solver.getPlacementCol(p);
+            if (i < placed) {
+                board.place(sequencePieces[i], sequenceRows[i], sequenceCols[i]);
+            }
+        }
+
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool.add(new Piece(TYPES[random.nextInt(TYPES.length)], PiecePalette.NEUTRAL));
+        }
+
+        for (int i = 0; i < PROBES; i++) {
+            Piece piece = new Piece(TYPES[random.nextInt(TYPES.length)], PiecePalette.NEUTRAL);
+            for (int turns = random.nextInt(4); turns > 0; turns--) {
+                piece.rotateClockwise();
+            }
+            probePieces[i] = piece;
+            probeRows[i] = random.nextInt(board.getRows());
+            probeCols[i] = random.nextInt(board.getCols());
+        }
+
+        rotatingPiece = new Piece(PentominoType.F, PiecePalette.NEUTRAL);
+        piecePool = new PiecePool(new RandomPieceSource(new Random(seed)));
+    }
+
+    private static Piece pieceFor(Orientation orientation) {
+        Piece piece = new Piece(orientation.getType(), PiecePalette.NEUTRAL);
+        while (piece.getOrientation() != orientation) {
+            piece.rotateClockwise();
+        }
+        return piece;
+    }
+
+    @Override
+    public int probeCount() {
+        return PROBES;
+    }
+
+    @Override
+    public boolean isPlacementValid(int probe) {
+        return board.isPlacementValid(probePieces[probe], probeRows[probe], probeCols[probe]);
+    }
+
+    @Override
+    public boolean hasValidMove() {
+        return board.hasValidMove(pool);
+    }
+
+    @Override
+    public void placeSequence() {
+        for (int i = 0; i < sequencePieces.length; i++) {
+            scratchBoard.place(sequencePieces[i], sequenceRows[i], sequenceCols[i]);
+        }
+    }
+
+    @Override
+    public void resetScratchBoard() {
+        scratchBoard.reset();
+    }
+
+    @Override
+    public void rotateClockwise() {
+        rotatingPiece.rotateClockwise();
+    }
+
+    @Override
+    public void rotateCounterClockwise() {
+        rotatingPiece.rotateCounterClockwise();
+    }
+
+    @Override
+    public Object getInitialShape(int typeIndex) {
+        return TYPES[typeIndex].getInitialShape();
+    }
+
+    @Override
+    public Object generateRandomPiece() {
+        piecePool.generateRandomPiece();
+        List<Piece> pieces = piecePool.getAvailablePieces();
+        Piece piece = pieces.get(pieces.size() - 1);
+        if (pieces.size() >= 64) {
+            piecePool.reset();
+        }
+        return piece;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark in this module with the GC profiler, so each result also
+ * reports gc.alloc.rate.norm (bytes allocated per operation).
+ *
+ * In IntelliJ enable annotation processing for the benchmarks module (JMH
+ * generates its harness at compile time) and run this class. An optional first
+ * argument is a regular expression selecting benchmarks, e.g. "GameBoard".
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "benchmarks\\..*";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
\ No newline at end of file
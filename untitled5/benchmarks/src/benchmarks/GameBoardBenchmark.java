@@ -0,0 +1,62 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** GameBoard hot paths on seeded empty, half-full and nearly-full fixture boards. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBoardBenchmark {
+
+    @Param({"EMPTY", "HALF", "NEARLY_FULL"})
+    public GameTarget.Fill fill;
+
+    @Param("42")
+    public long seed;
+
+    private GameTarget target;
+    private int probe;
+
+    @Setup
+    public void setUp() {
+        target = GameTarget.create(seed, fill);
+    }
+
+    @Benchmark
+    public boolean isPlacementValid() {
+        probe = (probe + 1) & (target.probeCount() - 1);
+        return target.isPlacementValid(probe);
+    }
+
+    @Benchmark
+    public boolean hasValidMove() {
+        return target.hasValidMove();
+    }
+
+    /** Places a full tiling of the board piece by piece, then resets it. */
+    @Benchmark
+    public void placeAndReset() {
+        target.placeSequence();
+        target.resetScratchBoard();
+    }
+
+    @Benchmark
+    public void reset() {
+        target.resetScratchBoard();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package benchmarks;
+
+/**
+ * The game classes live in the unnamed package, which JMH benchmarks (and any
+ * other named package) cannot import. The benchmarks therefore drive the game
+ * through this interface, implemented by BenchmarkTarget in the unnamed package
+ * and loaded reflectively once per trial. Every call is monomorphic and gets
+ * inlined, so it adds nothing measurable to the numbers.
+ */
+public interface GameTarget {
+
+    /** How much of the fixture board is filled before measuring. */
+    enum Fill { EMPTY, HALF, NEARLY_FULL }
+
+    /** Builds the fixture for the given seed, the same seed always gives the same board. */
+    static GameTarget create(long seed, Fill fill) {
+        try {
+            return (GameTarget) Class.forName("BenchmarkTarget")
+                    .getConstructor(long.class, Fill.class)
+                    .newInstance(seed, fill);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchmarkTarget is not on the classpath", e);
+        }
+    }
+
+    // --- GameBoard ---
+
+    /** Number of precomputed (piece, row, col) probes for isPlacementValid. */
+    int probeCount();
+
+    boolean isPlacementValid(int probe);
+
+    boolean hasValidMove();
+
+    /** Places the fixture's placement sequence on the scratch board. */
+    void placeSequence();
+
+    void resetScratchBoard();
+
+    // --- Piece, PentominoType and PiecePool ---
+
+    void rotateClockwise();
+
+    void rotateCounterClockwise();
+
+    Object getInitialShape(int typeIndex);
+
+    Object generateRandomPiece();
+}
\ No newline at end of file
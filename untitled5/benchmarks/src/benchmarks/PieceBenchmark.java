@@ -0,0 +1,57 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Piece rotation, shape copies and piece generation. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceBenchmark {
+
+    @Param("42")
+    public long seed;
+
+    private GameTarget target;
+    private int typeIndex;
+
+    @Setup
+    public void setUp() {
+        target = GameTarget.create(seed, GameTarget.Fill.EMPTY);
+    }
+
+    @Benchmark
+    public void rotateClockwise() {
+        target.rotateClockwise();
+    }
+
+    @Benchmark
+    public void rotateCounterClockwise() {
+        target.rotateCounterClockwise();
+    }
+
+    @Benchmark
+    public Object getInitialShape() {
+        typeIndex = typeIndex == 11 ? 0 : typeIndex + 1;
+        return target.getInitialShape(typeIndex);
+    }
+
+    @Benchmark
+    public Object generateRandomPiece() {
+        return target.generateRandomPiece();
+    }
+}
\ No newline at end of file
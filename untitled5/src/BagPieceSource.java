@@ -0,0 +1,68 @@
+import java.util.SplittableRandom;
+
+/**
+ * Deals types from a shuffled bag of all twelve, refilled when it is empty, so
+ * every type comes up once per twelve pieces and the sequence only depends on
+ * the seed. With a PlacementIndex set the source also avoids dead deals: a type
+ * that fits nowhere on the board (in any rotation) is put back for one later in
+ * the bag that fits, or, when none there does, swapped for any type that fits.
+ * Only the index's per-type fit counts are read, so a deal costs at most two
+ * passes over the twelve types whatever the board size.
+ */
+public class BagPieceSource implements PieceSource {
+    private final SplittableRandom random;
+    private final PentominoType[] bag = PentominoType.values();
+    private int next = bag.length; // Bag position of the next type, reshuffled when it reaches the end
+    private PlacementIndex fits;
+
+    public BagPieceSource(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /** Only deals types that fit on the indexed board while some do, null (the default) deals the bag as is. */
+    public void setFitIndex(PlacementIndex fits) {
+        this.fits = fits;
+    }
+
+    @Override
+    public Piece nextPiece() {
+        if (next == bag.length) {
+            for (int i = bag.length - 1; i > 0; i--) {
+                swap(i, random.nextInt(i + 1));
+            }
+            next = 0;
+        }
+
+        PentominoType type = null;
+        if (fits != null && fits.getTypeFitCount(bag[next]) == 0) {
+            // Bring forward the first type left in the bag that fits
+            for (int i = next + 1; i < bag.length; i++) {
+                if (fits.getTypeFitCount(bag[i]) > 0) {
+                    swap(next, i);
+                    break;
+                }
+            }
+            if (fits.getTypeFitCount(bag[next]) == 0) {
+                // The rest of the bag is dead: deal a fitting type from outside it, leaving the bag as it is
+                int start = random.nextInt(bag.length);
+                for (int i = 0; i < bag.length && type == null; i++) {
+                    PentominoType candidate = bag[(start + i) % bag.length];
+                    if (fits.getTypeFitCount(candidate) > 0) {
+                        type = candidate;
+                    }
+                }
+            }
+        }
+        if (type == null) {
+            type = bag[next++];
+        }
+
+        return new Piece(type, PiecePalette.random(random));
+    }
+
+    private void swap(int i, int j) {
+        PentominoType t = bag[i];
+        bag[i] = bag[j];
+        bag[j] = t;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,527 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Picks the next placement for the pieces on offer with a beam search over the
+ * placement engine. Each level places one more of the offered pieces, in every
+ * rotation and at every legal anchor, on each position the level before kept,
+ * and keeps the beamWidth best results. The pieces dealt later are unknown, so
+ * a line is never deeper than the pool; the default depth leaves one piece of
+ * a full pool in hand, lines that had to place every piece played worse.
+ *
+ * Positions are scored by the empty regions they leave (a dead region ends the
+ * game, every extra region is harder to fill) and by the placements still open
+ * to each type, which counts for the pieces dealt next as much as for the pool.
+ * Search runs on copies of the board's PlacementIndex and RegionTracker, one per
+ * worker thread, and never changes the board it is given.
+ *
+ * The children of a level are scored in parallel, one task per kept position and
+ * piece. When the time budget runs out the search answers with the best first
+ * move of the deepest level it finished.
+ *
+ * Usage: java BeamSearchPlayer [games] [seed] [budgetMillis] [beamWidth] [depth] [threads]
+ * plays that many headless games through SelfPlaySimulator and prints how long
+ * the decisions took.
+ */
+public class BeamSearchPlayer implements AutoCloseable {
+    public static final int DEFAULT_BEAM_WIDTH = 32;
+    public static final int DEFAULT_DEPTH = 2;
+    public static final long DEFAULT_BUDGET_MILLIS = 5;
+
+    /** Returned by chooseMove() when no piece of the pool fits anywhere. */
+    public static final long NO_MOVE = -1L;
+
+    // Move layout: col 16 bits, row 16 bits, rotation 8 bits, pool index 8 bits
+    private static final int ROW_SHIFT = 16;
+    private static final int ROTATION_SHIFT = 32;
+    private static final int POOL_SHIFT = 40;
+
+    // Score weights. A dead region loses the game, a type that fits nowhere loses it
+    // as soon as the pool holds only that type
+    private static final long WIN_SCORE = Long.MAX_VALUE / 2;
+    private static final long DEAD_REGION_PENALTY = 1_000_000;
+    private static final long BLOCKED_TYPE_PENALTY = 10_000;
+    private static final long REGION_PENALTY = 50;
+
+    private static final int MAX_POOL = 30; // Used pieces are a bit mask
+    private static final PentominoType[] TYPES = PentominoType.values();
+
+    private final int beamWidth;
+    private final int depth;
+    private final long budgetNanos;
+    private final int threads;
+    private final ExecutorService workers; // Null when the search runs on the caller's thread
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<>();
+    private final AtomicLong nextSearch = new AtomicLong();
+
+    private final LongAdder decisions = new LongAdder();
+    private final LongAdder positions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder levels = new LongAdder();
+    private final LongAdder decisionNanos = new LongAdder();
+    private final AtomicLong maxDecisionNanos = new AtomicLong();
+
+    public BeamSearchPlayer() {
+        this(DEFAULT_BEAM_WIDTH, DEFAULT_DEPTH, DEFAULT_BUDGET_MILLIS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * A player keeping beamWidth positions per level, looking depth pieces ahead and
+     * answering within budgetMillis. With threads above 1 the levels are expanded on
+     * a pool of that many daemon threads, close() stops them.
+     */
+    public BeamSearchPlayer(int beamWidth, int depth, long budgetMillis, int threads) {
+        if (beamWidth < 1 || depth < 1 || budgetMillis < 0 || threads < 1) {
+            throw new IllegalArgumentException("Beam width, depth and threads must be positive, got "
+                    + beamWidth + ", " + depth + ", " + threads);
+        }
+        this.beamWidth = beamWidth;
+        this.depth = depth;
+        this.budgetNanos = budgetMillis * 1_000_000;
+        this.threads = threads;
+        this.workers = threads == 1 ? null : Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "beam-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // --- Moves ---
+
+    public static int poolIndex(long move) { return (int) (move >>> POOL_SHIFT) & 0xFF; }
+
+    /** Local orientation index of the piece's type, one of its rotations. */
+    public static int rotation(long move) { return (int) (move >>> ROTATION_SHIFT) & 0xFF; }
+
+    public static int row(long move) { return (int) (move >>> ROW_SHIFT) & 0xFFFF; }
+    public static int col(long move) { return (int) move & 0xFFFF; }
+
+    private static long move(int poolIndex, int rotation, int row, int col) {
+        return (long) poolIndex << POOL_SHIFT | (long) rotation << ROTATION_SHIFT | (long) row << ROW_SHIFT | col;
+    }
+
+    /**
+     * Makes the move chooseMove() picks for the game's pool, if there is one. Holds the
+     * game's lock for the whole search, so pool and board cannot change under it.
+     */
+    public boolean play(PentominoGame game) {
+        synchronized (game) {
+            if (game.isGameOver()) {
+                return false;
+            }
+            List<Piece> pool = game.getPiecePool().getAvailablePieces();
+            long move = chooseMove(game.getBoard(), pool);
+            if (move == NO_MOVE) {
+                return false;
+            }
+            Piece piece = pool.get(poolIndex(move));
+            while (piece.getOrientation().getLocalIndex() != rotation(move)) {
+                game.rotatePiece(piece, true);
+            }
+            return game.placePiece(piece, row(move), col(move));
+        }
+    }
+
+    /**
+     * The best placement of one of the pool's pieces on the board, or NO_MOVE. The board
+     * and pool must not change during the call, callers hold the game's lock.
+     */
+    public long chooseMove(GameBoard board, List<Piece> pool) {
+        long start = System.nanoTime();
+        Search search = new Search(board, pool, start + budgetNanos);
+
+        long best = NO_MOVE;
+        List<Node> beam = List.of(new Node(new long[0], 0, 0L, 0L));
+        int levelsDone = 0;
+        while (levelsDone < Math.min(depth, search.types.length)) {
+            List<Node> next = expand(search, beam);
+            if (search.timedOut) {
+                // A level cut short is only better than nothing when none was finished
+                if (levelsDone == 0 && !next.isEmpty()) {
+                    best = next.get(0).moves[0];
+                }
+                break;
+            }
+            if (next.isEmpty()) {
+                break; // No kept line can place another piece
+            }
+            beam = next;
+            best = beam.get(0).moves[0];
+            levelsDone++;
+        }
+        if (best == NO_MOVE && search.timedOut) {
+            best = firstLegalMove(board, search.types);
+        }
+        return recordDecision(start, search, levelsDone, best);
+    }
+
+    private long recordDecision(long start, Search search, int levelsDone, long move) {
+        long nanos = System.nanoTime() - start;
+        decisions.increment();
+        decisionNanos.add(nanos);
+        maxDecisionNanos.accumulateAndGet(nanos, Math::max);
+        levels.add(levelsDone);
+        if (search.timedOut) {
+            timeouts.increment();
+        }
+        return move;
+    }
+
+    // Fallback when the budget ran out before any position was scored
+    private static long firstLegalMove(GameBoard board, PentominoType[] types) {
+        PlacementIndex index = board.getPlacementIndex();
+        for (int p = 0; p < types.length; p++) {
+            for (int rotation = 0; rotation < types[p].getOrientationCount(false); rotation++) {
+                int anchor = index.nextLegalAnchor(types[p].getOrientation(rotation).getIndex(), 0);
+                if (anchor >= 0) {
+                    return move(p, rotation, anchor / board.getCols(), anchor % board.getCols());
+                }
+            }
+        }
+        return NO_MOVE;
+    }
+
+    // --- Search ---
+
+    // What one chooseMove() call shares with its tasks
+    private final class Search {
+        final long id = nextSearch.incrementAndGet();
+        final GameBoard board;
+        final PentominoType[] types;
+        final long deadline;
+        volatile boolean timedOut;
+
+        Search(GameBoard board, List<Piece> pool, long deadline) {
+            this.board = board;
+            this.types = new PentominoType[Math.min(pool.size(), MAX_POOL)];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = pool.get(i).getType();
+            }
+            this.deadline = deadline;
+        }
+    }
+
+    // A kept position: the moves from the root that lead to it
+    private static final class Node {
+        final long[] moves;
+        final int usedPieces; // Bit per pool index placed on the way
+        final long key;       // XOR of the Zobrist keys of the cells filled on the way
+        final long score;
+
+        Node(long[] moves, int usedPieces, long key, long score) {
+            this.moves = moves;
+            this.usedPieces = usedPieces;
+            this.key = key;
+            this.score = score;
+        }
+    }
+
+    // One level: every kept position gets one task per piece it has not placed yet
+    private List<Node> expand(Search search, List<Node> beam) {
+        List<Candidates> results = new ArrayList<>();
+        if (workers == null) {
+            for (Node parent : beam) {
+                for (int p = 0; p < search.types.length; p++) {
+                    if ((parent.usedPieces & (1 << p)) == 0) {
+                        results.add(expand(search, parent, p));
+                    }
+                }
+            }
+        } else {
+            List<Future<Candidates>> futures = new ArrayList<>();
+            for (Node parent : beam) {
+                for (int p = 0; p < search.types.length; p++) {
+                    if ((parent.usedPieces & (1 << p)) == 0) {
+                        int piece = p;
+                        futures.add(workers.submit(() -> expand(search, parent, piece)));
+                    }
+                }
+            }
+            try {
+                for (Future<Candidates> future : futures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                search.timedOut = true;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Beam search task failed", e.getCause());
+            }
+        }
+
+        // Merge the tasks' best children, the same position reached in another order only once
+        Candidates merged = new Candidates(beamWidth * results.size());
+        for (Candidates candidates : results) {
+            for (int i = 0; i < candidates.size; i++) {
+                merged.offer(candidates.scores[i], candidates.parents[i], candidates.moves[i],
+                        candidates.keys[i], candidates.used[i]);
+            }
+        }
+        Integer[] order = new Integer[merged.size];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(merged.scores[b], merged.scores[a]));
+
+        List<Node> next = new ArrayList<>(beamWidth);
+        for (int i = 0; i < order.length && next.size() < beamWidth; i++) {
+            int c = order[i];
+            if (containsPosition(next, merged.keys[c], merged.used[c])) {
+                continue;
+            }
+            long[] parentMoves = merged.parents[c].moves;
+            long[] moves = Arrays.copyOf(parentMoves, parentMoves.length + 1);
+            moves[parentMoves.length] = merged.moves[c];
+            next.add(new Node(moves, merged.used[c], merged.keys[c], merged.scores[c]));
+        }
+        return next;
+    }
+
+    private static boolean containsPosition(List<Node> nodes, long key, int usedPieces) {
+        for (Node node : nodes) {
+            if (node.key == key && node.usedPieces == usedPieces) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Scores every placement of one pool piece on the parent position, keeps the best
+    private Candidates expand(Search search, Node parent, int piece) {
+        Candidates best = new Candidates(beamWidth);
+        if (search.timedOut) {
+            return best;
+        }
+        Scratch s = scratchFor(search);
+        int atSearchRoot = s.index.checkpoint();
+        for (long move : parent.moves) {
+            s.apply(move, search.types[poolIndex(move)]);
+        }
+
+        PentominoType type = search.types[piece];
+        int cols = search.board.getCols();
+        int scored = 0;
+        scan:
+        for (int rotation = 0; rotation < type.getOrientationCount(false); rotation++) {
+            Orientation orientation = type.getOrientation(rotation);
+            int o = orientation.getIndex();
+            for (int anchor = s.index.nextLegalAnchor(o, 0); anchor >= 0; anchor = s.index.nextLegalAnchor(o, anchor + 1)) {
+                if (search.timedOut || System.nanoTime() > search.deadline) {
+                    search.timedOut = true;
+                    break scan;
+                }
+                long move = move(piece, rotation, anchor / cols, anchor % cols);
+                int beforeMove = s.index.checkpoint();
+                long key = parent.key ^ s.apply(move, type);
+                best.offer(score(s), parent, move, key, parent.usedPieces | 1 << piece);
+                s.undo(move, type);
+                s.index.rollback(beforeMove);
+                scored++;
+            }
+        }
+
+        for (int i = parent.moves.length - 1; i >= 0; i--) {
+            s.undo(parent.moves[i], search.types[poolIndex(parent.moves[i])]);
+        }
+        s.index.rollback(atSearchRoot);
+        positions.add(scored);
+        return best;
+    }
+
+    private static long score(Scratch s) {
+        if (s.index.getEmptyCells() == 0) {
+            return WIN_SCORE;
+        }
+        long score = -DEAD_REGION_PENALTY * s.regions.getDeadRegionCount()
+                - REGION_PENALTY * s.regions.getRegionCount();
+        for (PentominoType type : TYPES) {
+            int fits = s.index.getTypeFitCount(type);
+            score += fits == 0 ? -BLOCKED_TYPE_PENALTY : fits;
+        }
+        return score;
+    }
+
+    // The calling thread's copy of the board, copied once per search and per thread
+    private Scratch scratchFor(Search search) {
+        GameBoard board = search.board;
+        Scratch s = scratch.get();
+        if (s == null || s.rows != board.getRows() || s.cols != board.getCols()) {
+            s = new Scratch(board.getRows(), board.getCols());
+            scratch.set(s);
+        }
+        if (s.search != search.id) {
+            s.index.copyFrom(board.getPlacementIndex());
+            s.regions.copyFrom(board.getRegionTracker());
+            s.search = search.id;
+        }
+        return s;
+    }
+
+    // The parts of a board the search reads, moves are applied and taken back in place
+    private static final class Scratch {
+        final int rows;
+        final int cols;
+        final PlacementIndex index;
+        final RegionTracker regions;
+        final int[] cells = new int[5];
+        long search;
+
+        Scratch(int rows, int cols) {
+            this.rows = rows;
+            this.cols = cols;
+            this.index = new PlacementIndex(rows, cols);
+            this.index.enableRollback();
+            this.regions = new RegionTracker(rows, cols, false);
+        }
+
+        // Fills the move's cells, returns the XOR of their Zobrist keys. The caller takes the
+        // move back with undo() and a rollback of the index to a checkpoint from before it
+        long apply(long move, PentominoType type) {
+            Orientation orientation = type.getOrientation(rotation(move));
+            long key = 0L;
+            for (int k = 0; k < orientation.getCellCount(); k++) {
+                int r = row(move) + orientation.getCellRow(k);
+                int c = col(move) + orientation.getCellCol(k);
+                index.cellFilled(r, c);
+                key ^= Zobrist.cellKey(r, c);
+                cells[k] = r * cols + c;
+            }
+            regions.cellsFilled(cells, orientation.getCellCount());
+            return key;
+        }
+
+        // Empties the move's cells in the region tracker
+        void undo(long move, PentominoType type) {
+            Orientation orientation = type.getOrientation(rotation(move));
+            for (int k = 0; k < orientation.getCellCount(); k++) {
+                cells[k] = (row(move) + orientation.getCellRow(k)) * cols + col(move) + orientation.getCellCol(k);
+            }
+            regions.cellsEmptied(cells, orientation.getCellCount());
+        }
+    }
+
+    // The best children seen so far, at most capacity of them, in a min-heap on score
+    private static final class Candidates {
+        final long[] scores;
+        final Node[] parents;
+        final long[] moves;
+        final long[] keys;
+        final int[] used;
+        int size;
+
+        Candidates(int capacity) {
+            scores = new long[capacity];
+            parents = new Node[capacity];
+            moves = new long[capacity];
+            keys = new long[capacity];
+            used = new int[capacity];
+        }
+
+        void offer(long score, Node parent, long move, long key, int usedPieces) {
+            int i;
+            if (size < scores.length) {
+                i = size++;
+                while (i > 0 && scores[(i - 1) / 2] > score) {
+                    set(i, (i - 1) / 2);
+                    i = (i - 1) / 2;
+                }
+            } else if (score > scores[0]) {
+                i = 0; // Replace the worst and sift it down
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && scores[child + 1] < scores[child]) {
+                        child++;
+                    }
+                    if (scores[child] >= score) {
+                        break;
+                    }
+                    set(i, child);
+                    i = child;
+                }
+            } else {
+                return;
+            }
+            scores[i] = score;
+            parents[i] = parent;
+            moves[i] = move;
+            keys[i] = key;
+            used[i] = usedPieces;
+        }
+
+        private void set(int to, int from) {
+            scores[to] = scores[from];
+            parents[to] = parents[from];
+            moves[to] = moves[from];
+            keys[to] = keys[from];
+            used[to] = used[from];
+        }
+    }
+
+    // --- Counters ---
+
+    public long getDecisions() { return decisions.sum(); }
+
+    /** Positions scored over all decisions. */
+    public long getPositionsScored() { return positions.sum(); }
+
+    /** Decisions the time budget cut short. */
+    public long getTimeouts() { return timeouts.sum(); }
+
+    public double getMeanDecisionMillis() {
+        long count = decisions.sum();
+        return count == 0 ? 0 : decisionNanos.sum() / 1e6 / count;
+    }
+
+    public double getMaxDecisionMillis() { return maxDecisionNanos.get() / 1e6; }
+
+    /** Mean number of levels finished per decision. */
+    public double getMeanDepth() {
+        long count = decisions.sum();
+        return count == 0 ? 0 : (double) levels.sum() / count;
+    }
+
+    @Override
+    public void close() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BeamSearchPlayer[width=%d depth=%d budget=%dms threads=%d]",
+                beamWidth, depth, budgetNanos / 1_000_000, threads);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        long budgetMillis = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_BUDGET_MILLIS;
+        int beamWidth = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_BEAM_WIDTH;
+        int depth = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_DEPTH;
+        // The simulator already plays its games in parallel, so one thread per search by default
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+
+        try (BeamSearchPlayer player = new BeamSearchPlayer(beamWidth, depth, budgetMillis, threads)) {
+            SelfPlaySimulator simulator = new SelfPlaySimulator();
+            simulator.setPlayer(player);
+            simulator.run(games, seed, 2000L);
+
+            System.out.println(player);
+            System.out.printf("%d decisions: mean %.3fms, max %.3fms, %.2f levels, %.0f positions each, %d over budget%n",
+                    player.getDecisions(), player.getMeanDecisionMillis(), player.getMaxDecisionMillis(),
+                    player.getMeanDepth(), (double) player.getPositionsScored() / Math.max(player.getDecisions(), 1),
+                    player.getTimeouts());
+        }
+    }
+}
\ No newline at end of file
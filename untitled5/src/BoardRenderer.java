@@ -0,0 +1,16 @@
+import javafx.scene.Node;
+
+/**
+ * Draws a GameBoard into the scene. Implementations redraw only the cells the
+ * board reports as dirty and clear them afterwards. Always called on the FX thread.
+ */
+public interface BoardRenderer {
+
+    /** The node to put in the layout. It must let mouse events through to the pieces. */
+    Node getNode();
+
+    /** Edge length of one cell in pixels; cell (r, c) starts at (c * size, r * size) in the node. */
+    int getCellSize();
+
+    void render(GameBoard board);
+}
\ No newline at end of file
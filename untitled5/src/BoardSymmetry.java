@@ -0,0 +1,154 @@
+import java.util.Arrays;
+
+/**
+ * The symmetries of a board that keep the question "can the empty cells be
+ * tiled" unchanged, used to treat symmetric positions as one in search caches.
+ *
+ * A square board has the eight symmetries of the dihedral group D4, other
+ * boards the four that keep their shape. Only those that map the set of
+ * allowed piece orientations onto itself count: without mirror images a
+ * reflected tiling would use pieces the player cannot turn to, so only the
+ * rotations remain.
+ *
+ * Symmetry s maps (row, col) by transposing when bit 2 is set, then flipping
+ * the rows when bit 1 is set and the columns when bit 0 is set; 0 is the identity.
+ */
+public final class BoardSymmetry {
+    public static final int IDENTITY = 0;
+    private static final int TRANSPOSE = 4;
+    private static final int FLIP_ROWS = 2;
+    private static final int FLIP_COLS = 1;
+
+    private final int rows;
+    private final int cols;
+    private final int[] symmetries;
+
+    private BoardSymmetry(int rows, int cols, int[] symmetries) {
+        this.rows = rows;
+        this.cols = cols;
+        this.symmetries = symmetries;
+    }
+
+    /** The symmetries of a rows x cols board for the orientations a solver with includeMirrors uses. */
+    public static BoardSymmetry of(int rows, int cols, boolean includeMirrors) {
+        long[] allowed = new long[PentominoType.getOrientationTotal()];
+        int allowedCount = 0;
+        for (PentominoType type : PentominoType.values()) {
+            for (int i = 0; i < type.getOrientationCount(includeMirrors); i++) {
+                allowed[allowedCount++] = type.getOrientation(i).getMask();
+            }
+        }
+
+        int[] found = new int[8];
+        int count = 0;
+        for (int s = 0; s < 8; s++) {
+            if ((s & TRANSPOSE) != 0 && rows != cols) {
+                continue;
+            }
+            boolean closed = true;
+            for (PentominoType type : PentominoType.values()) {
+                for (int i = 0; i < type.getOrientationCount(includeMirrors) && closed; i++) {
+                    closed = contains(allowed, allowedCount, transformMask(s, type.getOrientation(i)));
+                }
+            }
+            if (closed) {
+                found[count++] = s;
+            }
+        }
+        return new BoardSymmetry(rows, cols, Arrays.copyOf(found, count));
+    }
+
+    // The orientation's shape after the symmetry, moved back to the top-left corner
+    private static long transformMask(int s, Orientation orientation) {
+        int height = (s & TRANSPOSE) != 0 ? orientation.getCols() : orientation.getRows();
+        int width = (s & TRANSPOSE) != 0 ? orientation.getRows() : orientation.getCols();
+        long mask = 0L;
+        for (int k = 0; k < orientation.getCellCount(); k++) {
+            int r = orientation.getCellRow(k);
+            int c = orientation.getCellCol(k);
+            if ((s & TRANSPOSE) != 0) {
+                int t = r;
+                r = c;
+                c = t;
+            }
+            if ((s & FLIP_ROWS) != 0) {
+                r = height - 1 - r;
+            }
+            if ((s & FLIP_COLS) != 0) {
+                c = width - 1 - c;
+            }
+            mask |= 1L << (r * 8 + c);
+        }
+        return mask;
+    }
+
+    private static boolean contains(long[] masks, int count, long mask) {
+        for (int i = 0; i < count; i++) {
+            if (masks[i] == mask) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Number of symmetries, the identity included. */
+    public int size() { return symmetries.length; }
+
+    /** The i-th symmetry, 0 is always the identity. */
+    public int get(int i) { return symmetries[i]; }
+
+    public int mapRow(int s, int row, int col) {
+        int r = (s & TRANSPOSE) != 0 ? col : row;
+        return (s & FLIP_ROWS) != 0 ? rows - 1 - r : r;
+    }
+
+    public int mapCol(int s, int row, int col) {
+        int c = (s & TRANSPOSE) != 0 ? row : col;
+        return (s & FLIP_COLS) != 0 ? cols - 1 - c : c;
+    }
+
+    /** Zobrist key of the cells the placement covers, after symmetry s. */
+    public long placementKey(int s, Orientation orientation, int row, int col) {
+        long key = 0L;
+        for (int k = 0; k < orientation.getCellCount(); k++) {
+            int r = row + orientation.getCellRow(k);
+            int c = col + orientation.getCellCol(k);
+            key ^= Zobrist.cellKey(mapRow(s, r, c), mapCol(s, r, c));
+        }
+        return key;
+    }
+
+    /**
+     * Fills hashes[i] with what GameBoard.getHash() would be for the board after the i-th
+     * symmetry, in one pass over the board. hashes needs at least size() entries.
+     */
+    public void hashes(GameBoard board, long[] hashes) {
+        Arrays.fill(hashes, 0, symmetries.length, Zobrist.sizeKey(rows, cols));
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (board.isOccupied(r, c)) {
+                    for (int i = 1; i < symmetries.length; i++) {
+                        hashes[i] ^= Zobrist.cellKey(mapRow(symmetries[i], r, c), mapCol(symmetries[i], r, c));
+                    }
+                }
+            }
+        }
+        hashes[0] = board.getHash();
+    }
+
+    /** The smallest hash over all symmetric copies of the board, the same for each of them. */
+    public long canonicalHash(GameBoard board) {
+        long[] hashes = new long[symmetries.length];
+        hashes(board, hashes);
+        return min(hashes, 0, hashes.length);
+    }
+
+    /** Smallest of count keys starting at from, the canonical one of a set of symmetric keys. */
+    public static long min(long[] keys, int from, int count) {
+        long min = keys[from];
+        for (int i = from + 1; i < from + count; i++) {
+            min = Math.min(min, keys[i]);
+        }
+        return min;
+    }
+}
\ No newline at end of file
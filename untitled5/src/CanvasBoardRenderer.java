@@ -0,0 +1,72 @@
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws the whole board onto a single Canvas, so the node count no longer grows
+ * with the board. Each frame only the dirty cells' rectangles are redrawn.
+ */
+public class CanvasBoardRenderer implements BoardRenderer {
+    // Below this size the outlines would cover the cell, so cells are drawn as plain blocks
+    private static final int MIN_OUTLINED_CELL = 6;
+
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private final int rows;
+    private final int cols;
+    private final int cellSize;
+
+    public CanvasBoardRenderer(int rows, int cols, int cellSize) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cellSize = cellSize;
+        this.canvas = new Canvas(cols * cellSize, rows * cellSize);
+        this.gc = canvas.getGraphicsContext2D();
+
+        canvas.setMouseTransparent(true);
+        gc.setLineWidth(1);
+    }
+
+    @Override
+    public Node getNode() {
+        return canvas;
+    }
+
+    @Override
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    @Override
+    public void render(GameBoard board) {
+        if (board.isAllDirty()) {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    paintCell(board, r, c);
+                }
+            }
+        } else {
+            for (int i = 0; i < board.getDirtyCount(); i++) {
+                int cell = board.getDirtyCell(i);
+                paintCell(board, cell / cols, cell % cols);
+            }
+        }
+        board.clearDirty();
+    }
+
+    private void paintCell(GameBoard board, int row, int col) {
+        int slot = board.getCell(row, col);
+        double x = col * cellSize;
+        double y = row * cellSize;
+
+        gc.setFill(slot == 0 ? Color.WHITE : board.getSlotColor(slot));
+        gc.fillRect(x, y, cellSize, cellSize);
+
+        if (cellSize >= MIN_OUTLINED_CELL) {
+            // Offset by half a pixel so the 1px outline lands on whole pixels
+            gc.setStroke(slot == 0 ? Color.LIGHTGRAY : Color.DARKGRAY);
+            gc.strokeRect(x + 0.5, y + 0.5, cellSize - 1, cellSize - 1);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+import java.util.Arrays;
+
+/**
+ * Sparse int grid split into 32x32 chunks that are only allocated once a
+ * non-zero value is written into them, so an empty or lightly used large
+ * board costs little more than its chunk table.
+ */
+public class ChunkedGrid {
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int rows;
+    private final int cols;
+    private final int chunkCols;
+    private final int[][] chunks;
+    private int allocatedChunks;
+
+    public ChunkedGrid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.chunkCols = (cols + CHUNK_MASK) >>> CHUNK_SHIFT;
+        int chunkRows = (rows + CHUNK_MASK) >>> CHUNK_SHIFT;
+        this.chunks = new int[chunkRows * chunkCols][];
+    }
+
+    public int get(int row, int col) {
+        int[] chunk = chunks[chunkIndex(row, col)];
+        return chunk == null ? 0 : chunk[offset(row, col)];
+    }
+
+    public void set(int row, int col, int value) {
+        int index = chunkIndex(row, col);
+        int[] chunk = chunks[index];
+        if (chunk == null) {
+            if (value == 0) {
+                return;
+            }
+            chunk = new int[CHUNK_SIZE * CHUNK_SIZE];
+            chunks[index] = chunk;
+            allocatedChunks++;
+        }
+        chunk[offset(row, col)] = value;
+    }
+
+    /** Sets every cell back to 0 and releases all chunks. */
+    public void clear() {
+        Arrays.fill(chunks, null);
+        allocatedChunks = 0;
+    }
+
+    /** Makes this grid equal to other, which must have the same size. Reuses allocated chunks. */
+    public void copyFrom(ChunkedGrid other) {
+        if (other.rows != rows || other.cols != cols) {
+            throw new IllegalArgumentException("Grid size mismatch");
+        }
+        allocatedChunks = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            int[] source = other.chunks[i];
+            if (source == null) {
+                chunks[i] = null;
+                continue;
+            }
+            if (chunks[i] == null) {
+                chunks[i] = source.clone();
+            } else {
+                System.arraycopy(source, 0, chunks[i], 0, source.length);
+            }
+            allocatedChunks++;
+        }
+    }
+
+    /** Approximate bytes held by allocated chunks, for diagnostics. */
+    public long getAllocatedBytes() {
+        return (long) allocatedChunks * CHUNK_SIZE * CHUNK_SIZE * Integer.BYTES;
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+
+    private int chunkIndex(int row, int col) {
+        return (row >>> CHUNK_SHIFT) * chunkCols + (col >>> CHUNK_SHIFT);
+    }
+
+    private static int offset(int row, int col) {
+        return ((row & CHUNK_MASK) << CHUNK_SHIFT) | (col & CHUNK_MASK);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,375 @@
+import java.util.Arrays;
+
+/**
+ * Knuth's Algorithm X on a dancing-links matrix stored in flat int arrays.
+ *
+ * Node 0 is the root, nodes 1..columns are the column headers and every row
+ * adds one node per column it covers. Columns below the primary count must be
+ * covered exactly once; the rest are secondary and may be left uncovered.
+ * All storage is allocated up front, so clearing, building and searching the
+ * same instance again allocates nothing.
+ *
+ * With a memo set, a search for the first solution also records in a
+ * TranspositionTable every subproblem it exhausted, keyed by the XOR of the
+ * keys of the rows chosen so far, and skips any subproblem found there. Rows
+ * can have several keys, one per symmetry of the problem (see BoardSymmetry);
+ * a subproblem is then keyed by the smallest of its keys, so all its
+ * symmetric copies share one entry.
+ */
+public class DancingLinks {
+
+    public enum Status { SOLVED, EXHAUSTED, TIMED_OUT, CANCELLED }
+
+    /** Receives every solution found by search(). Return false to stop searching. */
+    public interface SolutionListener {
+        boolean onSolution(DancingLinks dlx, int depth);
+    }
+
+    private static final int CHECK_INTERVAL = 1024;
+
+    // Subproblems whose search took fewer nodes than this are cheaper to redo than to store
+    private static final long MIN_MEMO_NODES = 16;
+
+    private final int maxColumns;
+    private final int maxRows;
+
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column;
+    private final int[] rowOf;
+    private final int[] size;
+    private final int[] choice;
+
+    private int rows;
+    private int nodes;
+
+    private long nodesVisited;
+    private long solutionsFound;
+    private int solutionDepth;
+    private volatile boolean cancelled;
+    private long nodeLimit;
+
+    private TranspositionTable memo;
+    private long[][] rowKeys;   // Per symmetry, the key of each row
+    private int keyCount;
+    private long[] pathKeys;    // keyCount keys of the subproblem at each depth, depth-major
+    private long[] entryNodes;  // nodesVisited when the search entered each depth
+    private long memoHits;
+
+    public DancingLinks(int maxColumns, int maxRows, int maxNodes) {
+        this.maxColumns = maxColumns;
+        this.maxRows = maxRows;
+
+        int capacity = maxColumns + 1 + maxNodes;
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.up = new int[capacity];
+        this.down = new int[capacity];
+        this.column = new int[capacity];
+        this.rowOf = new int[capacity];
+        this.size = new int[maxColumns + 1];
+        this.choice = new int[maxColumns + 1];
+    }
+
+    /**
+     * Copy constructor: an independent matrix in the same search state, for parallel
+     * search. The copy is trimmed to the nodes in use, so no rows can be added to it.
+     */
+    public DancingLinks(DancingLinks other) {
+        this.maxColumns = other.maxColumns;
+        this.maxRows = other.rows;
+        this.left = Arrays.copyOf(other.left, other.nodes);
+        this.right = Arrays.copyOf(other.right, other.nodes);
+        this.up = Arrays.copyOf(other.up, other.nodes);
+        this.down = Arrays.copyOf(other.down, other.nodes);
+        this.column = Arrays.copyOf(other.column, other.nodes);
+        this.rowOf = Arrays.copyOf(other.rowOf, other.nodes);
+        this.size = other.size.clone();
+        this.choice = other.choice.clone();
+        this.rows = other.rows;
+        this.nodes = other.nodes;
+    }
+
+    /** Starts a new matrix. Columns at or above primaryColumns are secondary. */
+    public void clear(int columns, int primaryColumns) {
+        if (columns > maxColumns) {
+            throw new IllegalArgumentException("Too many columns: " + columns);
+        }
+        this.rows = 0;
+        this.nodes = columns + 1;
+
+        left[0] = 0;
+        right[0] = 0;
+        for (int c = 1; c <= columns; c++) {
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+            size[c] = 0;
+            if (c <= primaryColumns) {
+                // Link the header into the root list so the search has to cover it
+                left[c] = left[0];
+                right[c] = 0;
+                right[left[0]] = c;
+                left[0] = c;
+            } else {
+                left[c] = c;
+                right[c] = c;
+            }
+        }
+        nodesVisited = 0;
+        solutionsFound = 0;
+        memoHits = 0;
+        cancelled = false;
+    }
+
+    /**
+     * Makes search() stop with TIMED_OUT once a search of this matrix has visited about
+     * maxNodes nodes, 0 (the default) for no limit. Unlike a deadline, the point where a
+     * search stops then does not depend on the machine or its load.
+     */
+    public void setNodeLimit(long maxNodes) {
+        this.nodeLimit = maxNodes;
+    }
+
+    /**
+     * Makes search() without a listener skip and record exhausted subproblems in the table.
+     * Under symmetry s the key of a subproblem is rootKeys[s] XOR rowKeys[s][row] of the rows
+     * chosen, so it equals the hash of the position it stands for; the smallest over all s is
+     * used. Each symmetry needs one root key. A null table turns memoization off.
+     */
+    public void setMemo(TranspositionTable table, long[][] rowKeys, long[] rootKeys) {
+        this.memo = table;
+        this.rowKeys = rowKeys;
+        if (table == null) {
+            return;
+        }
+        keyCount = rootKeys.length;
+        if (pathKeys == null || pathKeys.length < (maxColumns + 1) * keyCount) {
+            pathKeys = new long[(maxColumns + 1) * keyCount];
+        }
+        if (entryNodes == null) {
+            entryNodes = new long[maxColumns + 1];
+        }
+        System.arraycopy(rootKeys, 0, pathKeys, 0, keyCount);
+    }
+
+    // Canonical key of the subproblem at the given depth
+    private long memoKey(int depth) {
+        return BoardSymmetry.min(pathKeys, depth * keyCount, keyCount);
+    }
+
+    // Keys of the subproblem below depth once the given node is chosen at it
+    private void extendPath(int depth, int node) {
+        int row = rowOf[node];
+        for (int s = 0, from = depth * keyCount; s < keyCount; s++) {
+            pathKeys[from + keyCount + s] = pathKeys[from + s] ^ rowKeys[s][row];
+        }
+    }
+
+    /** Adds a row covering the given 0-based columns and returns its row id. */
+    public int addRow(int[] rowColumns, int count) {
+        if (rows == maxRows || nodes + count > left.length) {
+            throw new IllegalStateException("Matrix capacity exceeded");
+        }
+        int row = rows++;
+        int first = nodes;
+
+        for (int i = 0; i < count; i++) {
+            int c = rowColumns[i] + 1;
+            int node = nodes++;
+
+            column[node] = c;
+            rowOf[node] = row;
+            up[node] = up[c];
+            down[node] = c;
+            down[up[c]] = node;
+            up[c] = node;
+            size[c]++;
+
+            left[node] = node == first ? node : node - 1;
+            right[node] = first;
+            right[left[node]] = node;
+            left[first] = node;
+        }
+        return row;
+    }
+
+    /**
+     * Runs Algorithm X with the minimum-size column heuristic. The listener (may be null)
+     * sees every solution; without one the search stops at the first. Stops with TIMED_OUT
+     * once System.nanoTime() passes the deadline (0 for none) or the node limit is reached,
+     * or CANCELLED after cancel().
+     */
+    public Status search(long deadlineNanos, SolutionListener listener) {
+        return search(0, deadlineNanos, listener);
+    }
+
+    /**
+     * Same as search(), but continues below the rows already chosen at depths
+     * [0, startDepth) and never backtracks above them.
+     */
+    public Status search(int startDepth, long deadlineNanos, SolutionListener listener) {
+        int depth = startDepth;
+        int current = -1; // Node chosen at the current depth, -1 when a column still has to be picked
+        // Exhausted subproblems only have no solution when the search stops at the first one
+        boolean memoize = memo != null && listener == null;
+        if (memoize) {
+            for (int d = 0; d < startDepth; d++) {
+                extendPath(d, choice[d]);
+            }
+        }
+
+        while (true) {
+            if (current < 0) {
+                if (++nodesVisited % CHECK_INTERVAL == 0) {
+                    if (cancelled) {
+                        return Status.CANCELLED;
+                    }
+                    if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0
+                            || nodeLimit != 0 && nodesVisited >= nodeLimit) {
+                        return Status.TIMED_OUT;
+                    }
+                }
+
+                if (right[0] == 0) {
+                    solutionsFound++;
+                    solutionDepth = depth;
+                    if (listener == null || !listener.onSolution(this, depth)) {
+                        return Status.SOLVED;
+                    }
+                } else if (memoize && TranspositionTable.result(memo.probe(memoKey(depth)))
+                        == TranspositionTable.UNSOLVABLE) {
+                    memoHits++;
+                } else {
+                    int c = chooseColumn();
+                    if (size[c] > 0) {
+                        cover(c);
+                        current = down[c];
+                        choice[depth] = current;
+                        coverRow(current);
+                        if (memoize) {
+                            entryNodes[depth] = nodesVisited;
+                            extendPath(depth, current);
+                        }
+                        depth++;
+                        current = -1;
+                        continue;
+                    }
+                }
+
+                // Dead end (or solution reported): backtrack to the previous choice
+                if (depth == startDepth) {
+                    return Status.EXHAUSTED;
+                }
+                current = choice[--depth];
+            }
+
+            // Undo the row chosen at this depth and move on to the next row of its column
+            uncoverRow(current);
+            int c = column[current];
+            current = down[current];
+
+            if (current == c) {
+                uncover(c);
+                long nodes = memoize ? nodesVisited - entryNodes[depth] : 0;
+                if (nodes >= MIN_MEMO_NODES) {
+                    memo.store(memoKey(depth), TranspositionTable.UNSOLVABLE,
+                            64 - Long.numberOfLeadingZeros(nodes), TranspositionTable.NO_MOVE, 0);
+                }
+                if (depth == startDepth) {
+                    return Status.EXHAUSTED;
+                }
+                current = choice[--depth];
+                continue;
+            }
+
+            choice[depth] = current;
+            coverRow(current);
+            if (memoize) {
+                extendPath(depth, current);
+            }
+            depth++;
+            current = -1;
+        }
+    }
+
+    /** Picks the primary column with the fewest remaining rows. Only valid while one is uncovered. */
+    public int chooseColumn() {
+        int best = right[0];
+        for (int c = right[best]; c != 0 && size[best] > 1; c = right[c]) {
+            if (size[c] < size[best]) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /** True when every primary column is covered. */
+    public boolean isComplete() {
+        return right[0] == 0;
+    }
+
+    // --- Manual stepping, used to split the search tree between workers ---
+
+    public int getColumnSize(int c) { return size[c]; }
+    public int firstNodeOf(int c) { return down[c]; }
+    public int nextNodeOf(int node) { return down[node]; }
+
+    /** Chooses the row of the given node at the given depth, covering its column and the row. */
+    public void choose(int depth, int node) {
+        cover(column[node]);
+        coverRow(node);
+        choice[depth] = node;
+    }
+
+    /** Stops a running search, may be called from any thread. */
+    public void cancel() { cancelled = true; }
+
+    /** Row chosen at the given depth of the current (or last found) solution. */
+    public int getRowAt(int depth) { return rowOf[choice[depth]]; }
+    public int getSolutionDepth() { return solutionDepth; }
+    public int getRowCount() { return rows; }
+    public long getNodesVisited() { return nodesVisited; }
+    public long getSolutionsFound() { return solutionsFound; }
+
+    /** Subproblems the memo let the last searches skip. */
+    public long getMemoHits() { return memoHits; }
+
+    private void coverRow(int node) {
+        for (int j = right[node]; j != node; j = right[j]) {
+            cover(column[j]);
+        }
+    }
+
+    private void uncoverRow(int node) {
+        for (int j = left[node]; j != node; j = left[j]) {
+            uncover(column[j]);
+        }
+    }
+
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                up[down[j]] = j;
+                down[up[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+}
\ No newline at end of file
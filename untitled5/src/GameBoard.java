@@ -1,73 +1,232 @@
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import javafx.scene.paint.Color;
 
 public class GameBoard {
-    private static final int BOARD_ROWS = 10;
-    private static final int BOARD_COLS = 10;
-    private int[][] grid = new int[BOARD_ROWS][BOARD_COLS];
+    public static final int DEFAULT_ROWS = 10;
+    public static final int DEFAULT_COLS = 10;
+    public static final int MAX_SIZE = 1000;
 
-    private Map<Integer, Color> pieceColors = new HashMap<>();
+    // More changes than this between two frames are drawn as a full redraw
+    private static final int MAX_DIRTY_CELLS = 4096;
+
+    private final int rows;
+    private final int cols;
+    private final ChunkedGrid grid;
+
+    // Occupancy bitboard kept next to the id grid: one run of 64-bit words per row,
+    // bit (col & 63) of word (col >>> 6) is set when the cell is occupied.
+    private final int wordsPerRow;
+    private final long[] occupied;
+
+    // Legal anchors per orientation and the empty-cell count, updated as cells fill
+    private final PlacementIndex placementIndex;
+
+    // Connected empty regions, for spotting parts of the board no piece can fill any more.
+    // Pockets count as fillable by the rotations a player can make.
+    private final RegionTracker regions;
+    private final int[] pieceCells = new int[5];
+
+    // Zobrist hash of the occupancy, updated with every filled or emptied cell
+    private final long emptyHash;
+    private long hash;
+
+    // Cells (row * cols + col) changed since the last clearDirty(), for incremental rendering
+    private final int[] dirtyCells;
+    private int dirtyCount = 0;
+    private boolean allDirty = true;
+
+    // Every piece on the board has a slot, the grid holds slot numbers (0 for an empty cell)
+    // and slotColors their PiecePalette index. Slots of removed pieces are reused, so a
+    // board needs no more than it can hold at once and keeps its size across games.
+    private final byte[] slotColors;
+    private final int[] freeSlots;
+    private int freeSlotCount;
+    private int nextSlot = 1;
+
+    public GameBoard() {
+        this(DEFAULT_ROWS, DEFAULT_COLS);
+    }
+
+    public GameBoard(int rows, int cols) {
+        if (rows < 1 || cols < 1 || rows > MAX_SIZE || cols > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 1x1 and "
+                    + MAX_SIZE + "x" + MAX_SIZE + ", got " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.grid = new ChunkedGrid(rows, cols);
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.occupied = new long[rows * wordsPerRow];
+        this.placementIndex = new PlacementIndex(rows, cols);
+        this.regions = new RegionTracker(rows, cols, false);
+        this.dirtyCells = new int[Math.min(rows * cols, MAX_DIRTY_CELLS)];
+        this.slotColors = new byte[rows * cols / 5 + 1];
+        this.freeSlots = new int[slotColors.length];
+        this.emptyHash = Zobrist.sizeKey(rows, cols);
+        this.hash = emptyHash;
+    }
 
     public void reset() {
-        for (int i = 0; i < BOARD_ROWS; i++) {
-            for (int j = 0; j < BOARD_COLS; j++) {
-                grid[i][j] = 0;
-            }
+        grid.clear();
+        Arrays.fill(occupied, 0L);
+        placementIndex.reset();
+        regions.reset();
+        hash = emptyHash;
+        nextSlot = 1;
+        freeSlotCount = 0;
+        allDirty = true;
+        dirtyCount = 0;
+    }
+
+    /**
+     * Makes this board a copy of other, which must have the same size, e.g. to
+     * restore a checkpoint. The whole board is marked dirty.
+     */
+    public void copyFrom(GameBoard other) {
+        if (other.rows != rows || other.cols != cols) {
+            throw new IllegalArgumentException("Board size mismatch: " + other.rows + "x" + other.cols
+                    + " into " + rows + "x" + cols);
         }
-        pieceColors.clear();
+        grid.copyFrom(other.grid);
+        System.arraycopy(other.occupied, 0, occupied, 0, occupied.length);
+        placementIndex.copyFrom(other.placementIndex);
+        regions.copyFrom(other.regions);
+        hash = other.hash;
+        System.arraycopy(other.slotColors, 0, slotColors, 0, other.nextSlot);
+        System.arraycopy(other.freeSlots, 0, freeSlots, 0, other.freeSlotCount);
+        nextSlot = other.nextSlot;
+        freeSlotCount = other.freeSlotCount;
+        allDirty = true;
+        dirtyCount = 0;
     }
 
     // METHOD REQUIRED by PentominoGame
     public boolean isPlacementValid(Piece piece, int row, int col) {
         int[][] shape = piece.getShapeMatrix();
+        int height = shape.length;
+        int width = shape[0].length;
 
-        for (int i = 0; i < shape.length; i++) {
-            for (int j = 0; j < shape[0].length; j++) {
-                if (shape[i][j] == 1) {
-                    int boardRow = row + i;
-                    int boardCol = col + j;
-
-                    if (boardRow < 0 || boardRow >= BOARD_ROWS ||
-                            boardCol < 0 || boardCol >= BOARD_COLS ||
-                            grid[boardRow][boardCol] != 0) {
-                        return false;
-                    }
-                }
+        if (row < 0 || col < 0 || row + height > rows || col + width > cols) {
+            return false;
+        }
+
+        long[] rowMasks = piece.getRowMasks();
+        int word = col >>> 6;
+        int shift = col & 63;
+        boolean spansWords = shift + width > 64;
+
+        for (int i = 0; i < height; i++) {
+            int index = (row + i) * wordsPerRow + word;
+            if ((occupied[index] & (rowMasks[i] << shift)) != 0) {
+                return false;
+            }
+            if (spansWords && (occupied[index + 1] & (rowMasks[i] >>> (64 - shift))) != 0) {
+                return false;
             }
         }
         return true;
     }
 
     public void place(Piece piece, int row, int col) {
-        int[][] shape = piece.getShapeMatrix();
-        int pieceId = piece.getId();
+        Orientation orientation = piece.getOrientation();
+        int slot = newSlot(piece.getColorIndex());
 
-        pieceColors.put(pieceId, piece.getColor());
+        for (int k = 0; k < orientation.getCellCount(); k++) {
+            int r = row + orientation.getCellRow(k);
+            int c = col + orientation.getCellCol(k);
 
-        for (int i = 0; i < shape.length; i++) {
-            for (int j = 0; j < shape[0].length; j++) {
-                if (shape[i][j] == 1) {
-                    grid[row + i][col + j] = pieceId;
-                }
+            grid.set(r, c, slot);
+            setOccupied(r, c);
+            placementIndex.cellFilled(r, c);
+            hash ^= Zobrist.cellKey(r, c);
+            markDirty(r * cols + c);
+            pieceCells[k] = r * cols + c;
+        }
+        regions.cellsFilled(pieceCells, orientation.getCellCount());
+    }
+
+    /**
+     * Takes back a piece placed with place(piece, row, col), the piece turned to the
+     * orientation it was placed in. Used by undo, the cells must still hold the piece.
+     */
+    public void remove(Piece piece, int row, int col) {
+        Orientation orientation = piece.getOrientation();
+        int slot = grid.get(row + orientation.getCellRow(0), col + orientation.getCellCol(0));
+
+        for (int k = 0; k < orientation.getCellCount(); k++) {
+            int cellSlot = grid.get(row + orientation.getCellRow(k), col + orientation.getCellCol(k));
+            if (slot == 0 || cellSlot != slot) {
+                throw new IllegalStateException("No " + piece.getType() + " piece at " + row + "," + col);
             }
         }
+        for (int k = 0; k < orientation.getCellCount(); k++) {
+            int r = row + orientation.getCellRow(k);
+            int c = col + orientation.getCellCol(k);
+
+            grid.set(r, c, 0);
+            occupied[r * wordsPerRow + (c >>> 6)] &= ~(1L << (c & 63));
+            placementIndex.cellEmptied(r, c);
+            hash ^= Zobrist.cellKey(r, c);
+            markDirty(r * cols + c);
+            pieceCells[k] = r * cols + c;
+        }
+        regions.cellsEmptied(pieceCells, orientation.getCellCount());
+        freeSlots[freeSlotCount++] = slot;
     }
 
-    // METHOD REQUIRED by PentominoGame
-    public boolean hasValidMove(List<Piece> availablePieces) {
-        if (availablePieces.isEmpty()) {
-            return false;
+    /**
+     * Takes a slot for a piece of the given PiecePalette color and returns it. place() does
+     * this itself, a board restored cell by cell with setCell() takes one per piece.
+     */
+    public int newSlot(int colorIndex) {
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else if (nextSlot < slotColors.length) {
+            slot = nextSlot++;
+        } else {
+            throw new IllegalStateException("More than " + (slotColors.length - 1) + " pieces on the board");
         }
+        slotColors[slot] = (byte) colorIndex;
+        return slot;
+    }
+
+    /**
+     * Fills an empty cell with part of the piece in the given slot (see newSlot()), for
+     * restoring a saved board cell by cell. During play pieces go through place().
+     */
+    public void setCell(int row, int col, int slot) {
+        grid.set(row, col, slot);
+        setOccupied(row, col);
+        placementIndex.cellFilled(row, col);
+        hash ^= Zobrist.cellKey(row, col);
+        markDirty(row * cols + col);
+        pieceCells[0] = row * cols + col;
+        regions.cellsFilled(pieceCells, 1);
+    }
+
+    private void markDirty(int cell) {
+        if (allDirty) {
+            return;
+        }
+        if (dirtyCount == dirtyCells.length) {
+            allDirty = true;
+            return;
+        }
+        dirtyCells[dirtyCount++] = cell;
+    }
 
+    private void setOccupied(int row, int col) {
+        occupied[row * wordsPerRow + (col >>> 6)] |= 1L << (col & 63);
+    }
+
+    // METHOD REQUIRED by PentominoGame
+    // A piece counts in any of its rotations, the player can turn it before placing it
+    public boolean hasValidMove(List<Piece> availablePieces) {
         for (Piece piece : availablePieces) {
-            for (int r = 0; r < BOARD_ROWS; r++) {
-                for (int c = 0; c < BOARD_COLS; c++) {
-                    if (isPlacementValid(piece, r, c)) {
-                        return true;
-                    }
-                }
+            if (placementIndex.getTypeFitCount(piece.getType()) > 0) {
+                return true;
             }
         }
         return false;
@@ -75,19 +234,71 @@ public class GameBoard {
 
     // METHOD REQUIRED by PentominoGame
     public boolean isFull() {
-        for (int[] row : grid) {
-            for (int cell : row) {
-                if (cell == 0) {
-                    return false;
-                }
+        return placementIndex.getEmptyCells() == 0;
+    }
+
+    public PlacementIndex getPlacementIndex() { return placementIndex; }
+    public RegionTracker getRegionTracker() { return regions; }
+
+    /** True when some empty region can no longer be filled, so the board can never be completed. */
+    public boolean hasDeadRegion() {
+        return regions.hasDeadRegion();
+    }
+
+    /**
+     * Zobrist hash of which cells are filled (not by which pieces), see Zobrist. Equal
+     * boards of the same size always have equal hashes, e.g. for a TranspositionTable.
+     */
+    public long getHash() { return hash; }
+
+    // --- Changes since the last frame ---
+
+    /** True when every cell has to be redrawn, e.g. after reset(). */
+    public boolean isAllDirty() { return allDirty; }
+    public int getDirtyCount() { return dirtyCount; }
+
+    /** The i-th changed cell as row * getCols() + col. */
+    public int getDirtyCell(int i) { return dirtyCells[i]; }
+
+    /** Call once the renderer has drawn the current changes. */
+    public void clearDirty() {
+        allDirty = false;
+        dirtyCount = 0;
+    }
+
+    /** Slot of the piece covering the cell, 0 when it is empty. Slots are only unique among the pieces on the board. */
+    public int getCell(int row, int col) {
+        return grid.get(row, col);
+    }
+
+    public boolean isOccupied(int row, int col) {
+        return (occupied[row * wordsPerRow + (col >>> 6)] & (1L << (col & 63))) != 0;
+    }
+
+    /**
+     * Copy of the piece slots on the board. Builds a dense array, so large boards
+     * should read single cells with getCell() instead.
+     */
+    public int[][] getGridState() {
+        int[][] state = new int[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                state[r][c] = grid.get(r, c);
             }
         }
-        return true;
+        return state;
     }
 
-    public int[][] getGridState() { return grid; }
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+
+    /** Color of the piece in the slot, as found in a cell with getCell(). */
+    public Color getSlotColor(int slot) {
+        return PiecePalette.get(slotColors[slot]);
+    }
 
-    public Color getColorForPiece(int pieceId) {
-        return pieceColors.getOrDefault(pieceId, Color.GRAY);
+    /** PiecePalette index of the piece in the slot. */
+    public int getSlotColorIndex(int slot) {
+        return slotColors[slot] & 0xFF;
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+/**
+ * Source of the periodic ticks that drive a PentominoGame (the one second game
+ * timer and the piece pool refresh). Lets the game run on real time or on a
+ * simulated clock without any UI.
+ */
+public interface GameClock {
+
+    /** Handle of a scheduled task. */
+    interface Task {
+        void cancel();
+    }
+
+    Task scheduleAtFixedRate(Runnable task, long delayMillis, long periodMillis);
+}
\ No newline at end of file
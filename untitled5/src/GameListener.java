@@ -0,0 +1,15 @@
+/**
+ * Receives state changes from a PentominoGame. Calls come from whichever thread
+ * drove the change (the clock's thread for ticks and pool refreshes, the caller
+ * of placePiece for moves), so UI listeners must hand off to their own thread.
+ */
+public interface GameListener {
+    void onTimeChanged(int timeRemaining);
+
+    /** The board or the piece pool changed. */
+    void onStateChanged();
+
+    void onGameStarted();
+
+    void onGameOver(boolean didWin, String message);
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+/**
+ * Receives every event that changes a PentominoGame, in order, so the game can
+ * be logged and replayed. Calls are made while holding the game's lock, from
+ * whichever thread caused the event, so implementations must be quick.
+ */
+public interface GameRecorder {
+
+    /** A new game starts on an empty rows x cols board. */
+    void onGameStarted(int rows, int cols);
+
+    /** The piece source dealt a piece into the pool. */
+    void onPieceDealt(Piece piece);
+
+    void onPieceRotated(Piece piece, boolean clockwise);
+
+    /** The piece, in its current orientation, was placed with its anchor at (row, col). */
+    void onPiecePlaced(Piece piece, int row, int col, int tick);
+
+    /**
+     * The placement of piece at (row, col) was taken back: the piece went back to poolIndex
+     * in the pool and replacement, the piece dealt after it, left the pool if still there.
+     */
+    void onMoveUndone(Piece piece, int row, int col, int poolIndex, Piece replacement, int tick);
+
+    /** An undone placement was made again, replacement went back into the pool. */
+    void onMoveRedone(Piece piece, int row, int col, Piece replacement, int tick);
+
+    /** The timed refresh replaced the pool with the last poolSize pieces dealt. */
+    void onPoolRefreshed(int poolSize);
+
+    /** One second of game time passed; tick counts the seconds since the start. */
+    void onTick(int tick);
+
+    void onGameOver(boolean didWin, int tick);
+}
\ No newline at end of file
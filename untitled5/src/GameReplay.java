@@ -0,0 +1,331 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replays a MoveLog file onto a GameBoard without any UI or clock. The file is
+ * memory-mapped and decoded in place, so replay runs at the speed of
+ * GameBoard.place(). On the way forward a checkpoint of the board and pool is
+ * kept every few ticks, and seekTick() jumps back (or forward again) from the
+ * nearest one instead of replaying from the start.
+ *
+ * Usage: java GameReplay log.pml [repeats] prints the result and replay speed.
+ */
+public class GameReplay {
+    public static final int DEFAULT_CHECKPOINT_TICKS = 10;
+
+    /** Board and pool just before the TICK record at position, i.e. at the end of the tick. */
+    private static class Checkpoint {
+        final int position;
+        final int tick;
+        final long eventCount;
+        final int dealtCount;
+        final int[] pool;
+        final int[] poolOrientations;
+        final GameBoard board;
+
+        Checkpoint(int position, int tick, long eventCount, int dealtCount, int[] pool,
+                   int[] poolOrientations, GameBoard board) {
+            this.position = position;
+            this.tick = tick;
+            this.eventCount = eventCount;
+            this.dealtCount = dealtCount;
+            this.pool = pool;
+            this.poolOrientations = poolOrientations;
+            this.board = board;
+        }
+    }
+
+    private final ByteBuffer log;
+    private final int eventsStart;
+    private final int version;
+    private final long seed;
+    private final int gameNumber;
+    private final int checkpointTicks;
+    private final GameBoard board;
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+
+    private Piece[] dealt = new Piece[64];
+    private int dealtCount;
+    private int[] pool = new int[8]; // Sequence numbers of the pieces on offer
+    private int poolSize;
+
+    private int tick;
+    private long eventCount;
+    private boolean finished;
+    private boolean didWin;
+
+    public GameReplay(ByteBuffer log) {
+        this(log, DEFAULT_CHECKPOINT_TICKS);
+    }
+
+    /** Replays the log in the buffer, keeping a checkpoint every checkpointTicks ticks. */
+    public GameReplay(ByteBuffer log, int checkpointTicks) {
+        this.log = log;
+        this.checkpointTicks = checkpointTicks;
+
+        if (log.remaining() < 5 || log.getInt() != MoveLog.MAGIC) {
+            throw new IllegalArgumentException("Not a move log");
+        }
+        this.version = log.get();
+        if (version < 1 || version > MoveLog.VERSION) {
+            throw new IllegalArgumentException("Unsupported move log version " + version);
+        }
+        this.seed = MoveLog.getVarlong(log);
+        this.gameNumber = MoveLog.getVarint(log);
+        int rows = MoveLog.getVarint(log);
+        int cols = MoveLog.getVarint(log);
+        this.board = new GameBoard(rows, cols);
+        this.eventsStart = log.position();
+    }
+
+    /** Maps the file read-only and opens it for replay. */
+    public static GameReplay open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new GameReplay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** Applies the next event. Returns false at the end of the log. */
+    public boolean step() {
+        if (!log.hasRemaining()) {
+            return false;
+        }
+        int position = log.position();
+        byte tag = log.get();
+
+        switch (tag) {
+            case MoveLog.DEAL -> {
+                PentominoType type = PentominoType.values()[log.get()];
+                int color = version >= 3 ? log.get() & 0xFF
+                        : PiecePalette.nearest(log.get() & 0xFF, log.get() & 0xFF, log.get() & 0xFF);
+                if (dealtCount == dealt.length) {
+                    dealt = Arrays.copyOf(dealt, dealtCount * 2);
+                }
+                dealt[dealtCount] = new Piece(type, color);
+                addToPool(dealtCount++);
+            }
+            case MoveLog.ROTATE_CW -> dealt[MoveLog.getVarint(log)].rotateClockwise();
+            case MoveLog.ROTATE_CCW -> dealt[MoveLog.getVarint(log)].rotateCounterClockwise();
+            case MoveLog.PLACE -> {
+                int sequence = MoveLog.getVarint(log);
+                int orientation = MoveLog.getVarint(log);
+                int row = MoveLog.getVarint(log);
+                int col = MoveLog.getVarint(log);
+                MoveLog.getVarint(log); // Tick, the same as the number of TICK records so far
+
+                Piece piece = dealt[sequence];
+                piece.setOrientation(orientation);
+                if (!board.isPlacementValid(piece, row, col)) {
+                    throw new IllegalStateException("Illegal placement in log at " + position);
+                }
+                board.place(piece, row, col);
+                removeFromPool(sequence);
+            }
+            case MoveLog.UNDO -> {
+                int sequence = MoveLog.getVarint(log);
+                int orientation = MoveLog.getVarint(log);
+                int row = MoveLog.getVarint(log);
+                int col = MoveLog.getVarint(log);
+                int poolIndex = MoveLog.getVarint(log);
+                int replacement = MoveLog.getVarint(log) - 1;
+                MoveLog.getVarint(log);
+
+                Piece piece = dealt[sequence];
+                piece.setOrientation(orientation);
+                board.remove(piece, row, col);
+                if (replacement >= 0) {
+                    removeFromPool(replacement);
+                }
+                insertIntoPool(poolIndex, sequence);
+            }
+            case MoveLog.REDO -> {
+                int sequence = MoveLog.getVarint(log);
+                int orientation = MoveLog.getVarint(log);
+                int row = MoveLog.getVarint(log);
+                int col = MoveLog.getVarint(log);
+                int replacement = MoveLog.getVarint(log) - 1;
+                MoveLog.getVarint(log);
+
+                Piece piece = dealt[sequence];
+                piece.setOrientation(orientation);
+                if (!board.isPlacementValid(piece, row, col)) {
+                    throw new IllegalStateException("Illegal redo in log at " + position);
+                }
+                board.place(piece, row, col);
+                removeFromPool(sequence);
+                if (replacement >= 0) {
+                    addToPool(replacement);
+                }
+            }
+            case MoveLog.REFRESH -> {
+                int size = MoveLog.getVarint(log);
+                poolSize = 0;
+                for (int i = dealtCount - size; i < dealtCount; i++) {
+                    addToPool(i);
+                }
+            }
+            case MoveLog.TICK -> {
+                if (tick % checkpointTicks == 0 && (checkpoints.isEmpty()
+                        || checkpoints.get(checkpoints.size() - 1).tick < tick)) {
+                    saveCheckpoint(position);
+                }
+                tick++;
+            }
+            case MoveLog.END -> {
+                didWin = log.get() != 0;
+                MoveLog.getVarint(log);
+                finished = true;
+                poolSize = 0;
+            }
+            default -> throw new IllegalStateException("Unknown record " + tag + " at " + position);
+        }
+        eventCount++;
+        return true;
+    }
+
+    /** Replays every remaining event and returns the total number of events applied. */
+    public long runToEnd() {
+        while (step()) {
+            // Nothing to do between events
+        }
+        return eventCount;
+    }
+
+    /**
+     * Moves to the end of the given tick: everything that happened during it applied,
+     * the next tick not yet. Starts from the nearest checkpoint at or before it.
+     */
+    public void seekTick(int target) {
+        Checkpoint nearest = null;
+        for (int i = checkpoints.size() - 1; i >= 0; i--) {
+            if (checkpoints.get(i).tick <= target) {
+                nearest = checkpoints.get(i);
+                break;
+            }
+        }
+
+        if (target < tick) {
+            if (nearest != null) {
+                restore(nearest);
+            } else {
+                rewind();
+            }
+        } else if (nearest != null && nearest.tick > tick) {
+            restore(nearest);
+        }
+
+        while (log.hasRemaining()) {
+            if (log.get(log.position()) == MoveLog.TICK && tick == target) {
+                break;
+            }
+            step();
+        }
+    }
+
+    private void saveCheckpoint(int position) {
+        GameBoard copy = new GameBoard(board.getRows(), board.getCols());
+        copy.copyFrom(board);
+
+        int[] poolCopy = Arrays.copyOf(pool, poolSize);
+        int[] orientations = new int[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            orientations[i] = dealt[pool[i]].getOrientation().getLocalIndex();
+        }
+        checkpoints.add(new Checkpoint(position, tick, eventCount, dealtCount, poolCopy, orientations, copy));
+    }
+
+    private void restore(Checkpoint checkpoint) {
+        board.copyFrom(checkpoint.board);
+        log.position(checkpoint.position);
+        tick = checkpoint.tick;
+        eventCount = checkpoint.eventCount;
+        dealtCount = checkpoint.dealtCount;
+        poolSize = 0;
+        for (int i = 0; i < checkpoint.pool.length; i++) {
+            addToPool(checkpoint.pool[i]);
+            dealt[checkpoint.pool[i]].setOrientation(checkpoint.poolOrientations[i]);
+        }
+        finished = false;
+        didWin = false;
+    }
+
+    /** Goes back to the start of the log. Checkpoints are kept. */
+    public void rewind() {
+        board.reset();
+        log.position(eventsStart);
+        tick = 0;
+        eventCount = 0;
+        dealtCount = 0;
+        poolSize = 0;
+        finished = false;
+        didWin = false;
+    }
+
+    private void addToPool(int sequence) {
+        if (poolSize == pool.length) {
+            pool = Arrays.copyOf(pool, poolSize * 2);
+        }
+        pool[poolSize++] = sequence;
+    }
+
+    private void insertIntoPool(int index, int sequence) {
+        addToPool(sequence);
+        index = Math.min(index, poolSize - 1);
+        System.arraycopy(pool, index, pool, index + 1, poolSize - 1 - index);
+        pool[index] = sequence;
+    }
+
+    private void removeFromPool(int sequence) {
+        for (int i = 0; i < poolSize; i++) {
+            if (pool[i] == sequence) {
+                System.arraycopy(pool, i + 1, pool, i, poolSize - i - 1);
+                poolSize--;
+                return;
+            }
+        }
+    }
+
+    public GameBoard getBoard() { return board; }
+    public int getTick() { return tick; }
+    public long getEventCount() { return eventCount; }
+    public boolean isFinished() { return finished; }
+    public boolean didWin() { return didWin; }
+    public long getSeed() { return seed; }
+    public int getGameNumber() { return gameNumber; }
+    public int getCheckpointCount() { return checkpoints.size(); }
+
+    /** The pieces on offer at the current point of the replay, in pool order. */
+    public List<Piece> getPool() {
+        List<Piece> pieces = new ArrayList<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            pieces.add(dealt[pool[i]]);
+        }
+        return pieces;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args[0]);
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        GameReplay replay = open(file);
+        long events = replay.runToEnd();
+        System.out.printf("Game %d (seed %d): %d events, %d ticks, %s, %d empty cells left%n",
+                replay.getGameNumber(), replay.getSeed(), events, replay.getTick(),
+                replay.didWin() ? "won" : "lost", replay.getBoard().getPlacementIndex().getEmptyCells());
+
+        long start = System.nanoTime();
+        long total = 0;
+        for (int i = 0; i < repeats; i++) {
+            replay.rewind();
+            total += replay.runToEnd();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Replayed %d times in %.2fs (%.0f events/sec)%n", repeats, seconds, total / seconds);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Real-time GameClock that runs the timers of any number of games on one
+ * shared daemon thread, instead of two java.util.Timer threads per game.
+ * Tasks must be short; the game tick and the pool refresh both are.
+ */
+public class GameScheduler implements GameClock {
+    private static final GameScheduler SHARED = new GameScheduler();
+
+    private final ScheduledExecutorService executor;
+
+    public GameScheduler() {
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** The scheduler used by every game that is not given a clock of its own. */
+    public static GameScheduler shared() {
+        return SHARED;
+    }
+
+    @Override
+    public Task scheduleAtFixedRate(Runnable task, long delayMillis, long periodMillis) {
+        ScheduledFuture<?> future = executor.scheduleAtFixedRate(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // One failing game must not stop the clock of all the others, so the
+                // failure is reported here rather than ending the task
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, new IllegalStateException(
+                        "Clock task " + task + " (every " + periodMillis + " ms) failed", e));
+            }
+        }, delayMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return () -> future.cancel(false);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,317 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hosts headless games for any number of clients on a local TCP port, one
+ * virtual thread per connection and one game per connection. Every game runs
+ * on the shared GameScheduler tick, so a session costs its game and its socket
+ * but no thread or timer of its own. The dead-board solver is off unless a
+ * budget is set, it is larger than all the rest of a session.
+ *
+ * Protocol: one ASCII command per line, words separated by single spaces,
+ * answered by one line.
+ *   NEW [rows cols [seed]]                 OK sessionId, starts a game and ends the previous one
+ *   POOL                                   OK time type...
+ *   PLACE type rotation row col            OK time type... | ILLEGAL | NOPIECE
+ *   UNDO, REDO                             OK time type... | NO
+ *   BOARD                                  OK rows cols cells, row by row, 1 for a filled cell
+ *   STATS                                  OK sessions=N commands=N
+ *   QUIT                                   BYE
+ * The rotation is the piece's local orientation index among its rotations, the
+ * pool lists the type of every piece on offer. Commands on a finished game answer
+ * OVER WIN|LOSS message, malformed ones ERR reason.
+ *
+ * Usage: java GameServer [port] [rows] [cols] [solverBudgetMillis]
+ */
+public class GameServer implements Closeable {
+    public static final int DEFAULT_PORT = 7450;
+    private static final int BACKLOG = 4096;
+    private static final int MAX_LINE = 256;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final int defaultRows;
+    private final int defaultCols;
+    private long solverBudgetMillis = 0;
+
+    private final AtomicLong nextSessionId = new AtomicLong(1);
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final LongAdder commands = new LongAdder();
+
+    /** Listens on the loopback address, port 0 picks a free port. NEW without a size gets rows x cols. */
+    public GameServer(int port, int rows, int cols) throws IOException {
+        this.defaultRows = rows;
+        this.defaultCols = cols;
+        this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+    }
+
+    /** Budget of each game's dead-board check, 0 (the default) plays by the move rules alone. */
+    public void setSolverBudgetMillis(long solverBudgetMillis) {
+        this.solverBudgetMillis = solverBudgetMillis;
+    }
+
+    public int getPort() { return serverSocket.getLocalPort(); }
+
+    /** Sessions with a game right now. */
+    public int getSessionCount() { return sessions.get(); }
+
+    /** Accepts connections on the calling thread until close(). */
+    public void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            connections.submit(() -> handle(socket));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    // One client's game, reused by the next NEW of the same size. Listener calls come under
+    // the game's lock, often from the clock thread, so they only note how the game ended.
+    private static final class Session implements GameListener {
+        final PentominoGame game;
+        final Random random; // Deals the game's pieces, reseeded for each game
+        long id;
+        volatile String endMessage;
+
+        Session(PentominoGame game, Random random) {
+            this.game = game;
+            this.random = random;
+        }
+
+        @Override public void onTimeChanged(int timeRemaining) { }
+        @Override public void onStateChanged() { }
+        @Override public void onGameStarted() { }
+
+        @Override
+        public void onGameOver(boolean didWin, String message) {
+            endMessage = message;
+        }
+    }
+
+    private void handle(Socket socket) {
+        Session session = null;
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 512);
+            OutputStream out = socket.getOutputStream();
+            StringBuilder line = new StringBuilder();
+            StringBuilder reply = new StringBuilder();
+
+            while (readLine(in, line)) {
+                commands.increment();
+                reply.setLength(0);
+                String[] args = line.toString().split(" ");
+                String command = args[0].toUpperCase();
+
+                if (command.equals("QUIT")) {
+                    out.write("BYE\n".getBytes(StandardCharsets.US_ASCII));
+                    break;
+                }
+                try {
+                    if (command.equals("NEW")) {
+                        boolean first = session == null;
+                        session = startSession(args, session);
+                        if (first) {
+                            sessions.incrementAndGet();
+                        }
+                        reply.append("OK ").append(session.id);
+                    } else if (command.equals("STATS")) {
+                        reply.append("OK sessions=").append(sessions.get()).append(" commands=").append(commands.sum());
+                    } else if (session == null) {
+                        reply.append("ERR no game, send NEW first");
+                    } else {
+                        execute(session, command, args, reply);
+                    }
+                } catch (IllegalArgumentException e) {
+                    reply.setLength(0);
+                    reply.append("ERR ").append(e.getMessage());
+                }
+                reply.append('\n');
+                out.write(reply.toString().getBytes(StandardCharsets.US_ASCII));
+            }
+        } catch (IOException e) {
+            // The client went away, its game goes with it
+        } finally {
+            if (session != null) {
+                session.game.abandonGame();
+                sessions.decrementAndGet();
+            }
+        }
+    }
+
+    // Starts the game of a NEW command, in the previous session's game if it has the same size
+    private Session startSession(String[] args, Session previous) {
+        if (args.length != 1 && args.length != 3 && args.length != 4) {
+            throw new IllegalArgumentException("usage NEW [rows cols [seed]]");
+        }
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : defaultRows;
+        int cols = args.length > 1 ? Integer.parseInt(args[2]) : defaultCols;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : new Random().nextLong();
+
+        Session session = previous;
+        if (previous == null || previous.game.getBoard().getRows() != rows || previous.game.getBoard().getCols() != cols) {
+            Random random = new Random();
+            PentominoGame game = new PentominoGame(GameScheduler.shared(), new RandomPieceSource(random), rows, cols);
+            game.setSolverBudgetMillis(solverBudgetMillis);
+            session = new Session(game, random);
+            game.addListener(session);
+            if (previous != null) {
+                previous.game.abandonGame();
+            }
+        }
+        synchronized (session.game) {
+            session.id = nextSessionId.getAndIncrement();
+            session.endMessage = null;
+            session.random.setSeed(seed);
+            session.game.startGame();
+        }
+        return session;
+    }
+
+    private static void execute(Session session, String command, String[] args, StringBuilder reply) {
+        PentominoGame game = session.game;
+        // The game is the lock, a pool refresh cannot come between finding a piece and placing it
+        synchronized (game) {
+            if (game.isGameOver()) {
+                appendOver(session, reply);
+                return;
+            }
+            switch (command) {
+                case "POOL" -> appendState(game, reply);
+                case "PLACE" -> place(session, args, reply);
+                case "UNDO" -> {
+                    if (game.undo()) {
+                        appendState(game, reply);
+                    } else {
+                        reply.append("NO");
+                    }
+                }
+                case "REDO" -> {
+                    if (game.redo()) {
+                        appendState(game, reply);
+                    } else {
+                        reply.append("NO");
+                    }
+                }
+                case "BOARD" -> appendBoard(game.getBoard(), reply);
+                default -> throw new IllegalArgumentException("unknown command " + command);
+            }
+        }
+    }
+
+    private static void place(Session session, String[] args, StringBuilder reply) {
+        if (args.length != 5) {
+            throw new IllegalArgumentException("usage PLACE type rotation row col");
+        }
+        PentominoType type = PentominoType.valueOf(args[1].toUpperCase());
+        int rotation = Integer.parseInt(args[2]);
+        int row = Integer.parseInt(args[3]);
+        int col = Integer.parseInt(args[4]);
+        if (rotation < 0 || rotation >= type.getOrientationCount(false)) {
+            throw new IllegalArgumentException("no rotation " + rotation + " for " + type);
+        }
+
+        PentominoGame game = session.game;
+        Piece piece = null;
+        for (Piece p : game.getPiecePool().getAvailablePieces()) {
+            if (p.getType() == type) {
+                piece = p;
+                break;
+            }
+        }
+        if (piece == null) {
+            reply.append("NOPIECE");
+            return;
+        }
+        while (piece.getOrientation().getLocalIndex() != rotation) {
+            game.rotatePiece(piece, true);
+        }
+        if (!game.placePiece(piece, row, col)) {
+            reply.append("ILLEGAL");
+        } else if (game.isGameOver()) {
+            appendOver(session, reply);
+        } else {
+            appendState(game, reply);
+        }
+    }
+
+    private static void appendState(PentominoGame game, StringBuilder reply) {
+        reply.append("OK ").append(game.getTimeRemaining());
+        List<Piece> pool = game.getPiecePool().getAvailablePieces();
+        for (int i = 0; i < pool.size(); i++) {
+            reply.append(' ').append(pool.get(i).getType().name());
+        }
+    }
+
+    private static void appendOver(Session session, StringBuilder reply) {
+        reply.append("OVER ").append(session.game.didWin() ? "WIN " : "LOSS ").append(session.endMessage);
+    }
+
+    private static void appendBoard(GameBoard board, StringBuilder reply) {
+        reply.append("OK ").append(board.getRows()).append(' ').append(board.getCols()).append(' ');
+        for (int r = 0; r < board.getRows(); r++) {
+            for (int c = 0; c < board.getCols(); c++) {
+                reply.append(board.isOccupied(r, c) ? '1' : '0');
+            }
+        }
+    }
+
+    // Reads one line without its line end, false at the end of the stream
+    static boolean readLine(InputStream in, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return line.length() > 0;
+            }
+            if (line.length() == MAX_LINE) {
+                throw new IOException("Line longer than " + MAX_LINE + " characters");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return true;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : GameBoard.DEFAULT_ROWS;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : GameBoard.DEFAULT_COLS;
+
+        try (GameServer server = new GameServer(port, rows, cols)) {
+            if (args.length > 3) {
+                server.setSolverBudgetMillis(Long.parseLong(args[3]));
+            }
+            System.out.println("Serving " + rows + "x" + cols + " games on "
+                    + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort());
+            server.serve();
+        }
+    }
+}
\ No newline at end of file
@@ -1,18 +1,19 @@
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
-import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 import javafx.scene.input.KeyCode;
 import javafx.stage.Stage;
+import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
@@ -20,65 +21,171 @@ import javafx.scene.text.TextAlignment;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
-public class GameView extends Application {
+public class GameView extends Application implements GameListener {
 
     private PentominoGame gameModel;
+    private MoveLogWriter moveLog;
     private Stage primaryStage;
 
     // --- UI Elements ---
     private Label timerLabel = new Label("Time: 0s");
     private Button restartButton = new Button("Restart");
+    private Button undoButton = new Button("Undo");
+    private Button redoButton = new Button("Redo");
+    private Button hintButton = new Button("Hint");
     private Pane piecePoolUI = new Pane();
-    private GridPane gameBoardUI = new GridPane();
     private StackPane modalOverlay = new StackPane();
 
     // Constants
     private static final int SQUARE_SIZE = 40;
-    private static final int BOARD_ROWS = 10;
-    private static final int BOARD_COLS = 10;
-    private static final int BOARD_PIXEL_WIDTH = BOARD_COLS * SQUARE_SIZE;
+    private static final int MAX_BOARD_PIXELS = 800;
+    private static final int MIN_POOL_WIDTH = 400;
     private static final int POOL_HEIGHT = 200;
     private static final int TOP_CONTROL_HEIGHT = 50;
+    // Above this many cells the default renderer is the Canvas, one node per cell gets too slow
+    private static final int MAX_GRID_RENDERER_CELLS = 2500;
 
-    // Final Window Size Calculation
-    private static final int WINDOW_WIDTH = BOARD_PIXEL_WIDTH + 40;
-    private static final int WINDOW_HEIGHT = TOP_CONTROL_HEIGHT + POOL_HEIGHT + (BOARD_ROWS * SQUARE_SIZE) + 10;
+    // Sizes derived from the board in start(), GameBoard is the single source of truth
+    private int squareSize;
+    private int windowWidth;
+    private int windowHeight;
 
     // State
     private GraphicalPiece draggedPiece = null;
+    private BoardRenderer boardRenderer;
+    private boolean useCanvasRenderer = false;
+    private PlacementGhost ghost;
+    private BeamSearchPlayer hintPlayer; // Created by the first hint
+    private Button startButton;
+    private Scene gameScene; // Built while the start screen shows
+    private PentominoGame pendingGame; // Set up before the first frame was drawn, waits for it
+    private boolean firstFrameHandled; // Pulses after the first one until its listener is removed do nothing
+    private long seed;
+    private String recordDir;
+    private String puzzleFile;
+    private List<Puzzle> puzzles; // Loaded by the setup thread, null when not playing puzzles
+    private Random puzzleRandom;
+    // Scene position of the board origin and of the dragged piece, captured while dragging
+    private double boardSceneX, boardSceneY;
+    private double dragSceneX, dragSceneY;
+
+    // Startup timing, System.nanoTime() of each step or 0 until it happened
+    private long launchMillis; // From the JVM start to start(), -1 if the OS does not tell
+    private long startNanos;
+    private long firstFrameNanos;
+    private long interactiveNanos;
+    private boolean startupReport;
+    private boolean exitAfterStartup;
 
     @Override
     public void start(Stage primaryStage) {
+        startNanos = System.nanoTime();
+        launchMillis = ProcessHandle.current().info().startInstant()
+                .map(launch -> Instant.now().toEpochMilli() - launch.toEpochMilli()).orElse(-1L);
         this.primaryStage = primaryStage;
-        this.gameModel = new PentominoGame(this);
+        // --rows=N --cols=N pick the board size, --renderer=canvas|grid the way it is drawn,
+        // --seed=N fixes the pieces dealt and --record=DIR writes a move log of every game.
+        // --startup=report prints how long startup took, --startup=exit also quits right after.
+        // --puzzles=FILE plays random puzzles of a PuzzleGenerator library instead of empty boards,
+        // --deal=bag deals every type once per twelve pieces and --deal=fit only types that still fit
+        Map<String, String> options = getParameters().getNamed();
+        int rows = Integer.parseInt(options.getOrDefault("rows", String.valueOf(GameBoard.DEFAULT_ROWS)));
+        int cols = Integer.parseInt(options.getOrDefault("cols", String.valueOf(GameBoard.DEFAULT_COLS)));
+        seed = options.containsKey("seed") ? Long.parseLong(options.get("seed")) : new Random().nextLong();
+        recordDir = options.get("record");
+        String deal = options.getOrDefault("deal", "random");
+        puzzleFile = options.get("puzzles");
+        String startup = options.get("startup");
+        exitAfterStartup = "exit".equals(startup);
+        startupReport = exitAfterStartup || "report".equals(startup);
+
+        // The board, its shape tables and the solver are built off the FX thread while the
+        // start screen shows, they take longer than the whole start screen on large boards
+        Thread setup = new Thread(() -> {
+            String step = "creating the " + rows + "x" + cols + " game";
+            try {
+                BagPieceSource bag = deal.equals("random") ? null : new BagPieceSource(seed);
+                PentominoGame game = new PentominoGame(GameScheduler.shared(),
+                        bag != null ? bag : new RandomPieceSource(new Random(seed)), rows, cols);
+                if (bag != null && deal.equals("fit")) {
+                    bag.setFitIndex(game.getBoard().getPlacementIndex());
+                }
+                step = "preparing the solver";
+                game.prepareSolver();
+                if (puzzleFile != null) {
+                    step = "loading puzzles from " + puzzleFile;
+                    puzzles = loadPuzzles(puzzleFile, rows, cols);
+                    puzzleRandom = new Random(seed);
+                }
+                Platform.runLater(() -> gameReady(game));
+            } catch (RuntimeException e) {
+                // Without a game the start screen would wait forever, so report and quit
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread,
+                        new IllegalStateException("Game setup failed while " + step, e));
+                Platform.runLater(Platform::exit);
+            }
+        }, "game-setup");
+        setup.setDaemon(true);
+        setup.start();
+
+        String renderer = options.get("renderer");
+        useCanvasRenderer = renderer == null ? rows * cols > MAX_GRID_RENDERER_CELLS : renderer.equals("canvas");
+
+        // Cells shrink on large boards so the whole board stays on screen
+        squareSize = Math.max(1, Math.min(SQUARE_SIZE, MAX_BOARD_PIXELS / Math.max(rows, cols)));
+        windowWidth = Math.max(cols * squareSize, MIN_POOL_WIDTH) + 40;
+        windowHeight = TOP_CONTROL_HEIGHT + POOL_HEIGHT + (rows * squareSize) + 10;
 
         primaryStage.setTitle("Pentomino Puzzle Game");
         primaryStage.setResizable(false);
 
-        primaryStage.setScene(createStartScene());
+        Scene startScene = createStartScene();
+        // Post-layout is the last step of a pulse before it is drawn, the first one is the first frame
+        startScene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                if (firstFrameHandled) {
+                    return;
+                }
+                firstFrameHandled = true;
+                firstFrameNanos = System.nanoTime();
+                Runnable listener = this;
+                PentominoGame game = pendingGame;
+                // Not changed while the scene walks its pulse listeners
+                Platform.runLater(() -> {
+                    startScene.removePostLayoutPulseListener(listener);
+                    if (game != null) {
+                        gameReady(game);
+                    }
+                });
+            }
+        });
+        primaryStage.setScene(startScene);
         primaryStage.show();
     }
 
     private Scene createStartScene() {
+        // Loaded in the background and scaled to the window while decoding, the scene shows
+        // black until the image is ready
         Image backgroundImage = null;
-        try {
-            backgroundImage = new Image(getClass().getResourceAsStream("/pentomino_bg.png"));
-        } catch (Exception e) {
+        URL imageUrl = getClass().getResource("/pentomino_bg.png");
+        if (imageUrl != null) {
+            backgroundImage = new Image(imageUrl.toExternalForm(), windowWidth, windowHeight, false, true, true);
+            backgroundImage.errorProperty().addListener((observable, wasError, isError) ->
+                    System.out.println("Image 'pentomino_bg.png' cannot be read. Using solid black background."));
+        } else {
             System.out.println("Image 'pentomino_bg.png' not found. Using solid black background.");
         }
 
-        ImageView backgroundView = null;
-        if (backgroundImage != null) {
-            backgroundView = new ImageView(backgroundImage);
-            backgroundView.setFitWidth(WINDOW_WIDTH);
-            backgroundView.setFitHeight(WINDOW_HEIGHT);
-            backgroundView.setPreserveRatio(false);
-        }
-
         // --- Title and Button Setup ---
         Label title = new Label("PENTOMINO PUZZLE GAME");
         title.setFont(Font.font("Arial", FontWeight.BOLD, 32));
@@ -86,43 +193,108 @@ public class GameView extends Application {
         title.setStyle("-fx-effect: dropshadow(gaussian, black, 10, 0.5, 0, 0);");
         title.setTextAlignment(TextAlignment.CENTER);
 
-        Button startButton = new Button("START GAME");
+        // Enabled by gameReady() once the game scene is built
+        startButton = new Button("LOADING...");
         startButton.setFont(Font.font("Arial", FontWeight.BOLD, 24));
         startButton.setPrefSize(200, 60);
-        startButton.setOnAction(e -> primaryStage.setScene(createGameScene()));
+        startButton.setDisable(true);
+        startButton.setOnAction(e -> {
+            primaryStage.setScene(gameScene);
+            startNextGame();
+        });
 
         VBox content = new VBox(50, title, startButton);
         content.setAlignment(Pos.CENTER);
 
         StackPane root = new StackPane();
-        if (backgroundView != null) {
-            root.getChildren().add(backgroundView);
-        } else {
-            root.setStyle("-fx-background-color: black;");
+        root.setStyle("-fx-background-color: black;");
+        if (backgroundImage != null) {
+            root.getChildren().add(new ImageView(backgroundImage));
         }
         root.getChildren().add(content);
 
-        return new Scene(root, WINDOW_WIDTH, WINDOW_HEIGHT);
+        return new Scene(root, windowWidth, windowHeight);
+    }
+
+    // On the FX thread once the game is set up. The game scene is only built after the
+    // first frame, until then the start screen would wait for it.
+    private void gameReady(PentominoGame game) {
+        if (firstFrameNanos == 0) {
+            pendingGame = game;
+            return;
+        }
+        pendingGame = null;
+
+        this.gameModel = game;
+        gameModel.addListener(this);
+        if (recordDir != null) {
+            try {
+                moveLog = new MoveLogWriter(Path.of(recordDir), seed);
+                gameModel.setRecorder(moveLog);
+            } catch (IOException e) {
+                System.out.println("Cannot record games to " + recordDir + ": " + e.getMessage());
+            }
+        }
+        gameScene = createGameScene();
+        startButton.setText("START GAME");
+        startButton.setDisable(false);
+
+        interactiveNanos = System.nanoTime();
+        if (startupReport) {
+            reportStartup();
+        }
+        if (exitAfterStartup) {
+            Platform.exit();
+        }
+    }
+
+    // The puzzles of the library that fit the board, null if there are none
+    private static List<Puzzle> loadPuzzles(String file, int rows, int cols) {
+        try {
+            List<Puzzle> library = Puzzle.readLibrary(Path.of(file));
+            if (!library.isEmpty() && library.get(0).getRows() == rows && library.get(0).getCols() == cols) {
+                return library;
+            }
+            System.out.println("No " + rows + "x" + cols + " puzzles in " + file + ", playing normal games.");
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Cannot read puzzles from " + file + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private void startNextGame() {
+        if (puzzles != null) {
+            gameModel.startPuzzle(puzzles.get(puzzleRandom.nextInt(puzzles.size())));
+        } else {
+            gameModel.startGame();
+        }
+    }
+
+    private void reportStartup() {
+        long firstFrame = (firstFrameNanos - startNanos) / 1_000_000;
+        long interactive = (interactiveNanos - startNanos) / 1_000_000;
+        if (launchMillis >= 0) {
+            System.out.printf("Startup: JavaFX up after %d ms, first frame after %d ms, interactive after %d ms%n",
+                    launchMillis, launchMillis + firstFrame, launchMillis + interactive);
+        } else {
+            System.out.printf("Startup: first frame %d ms, interactive %d ms after the start of the application%n",
+                    firstFrame, interactive);
+        }
     }
 
     private Scene createGameScene() {
         // --- 1. Setup Section 1: Control Panel ---
-        HBox controlPanel = new HBox(20, timerLabel, restartButton);
+        HBox controlPanel = new HBox(20, timerLabel, restartButton, undoButton, redoButton, hintButton);
         controlPanel.setStyle("-fx-padding: 10; -fx-alignment: center;");
-        controlPanel.setPrefWidth(WINDOW_WIDTH);
+        controlPanel.setPrefWidth(windowWidth);
 
         // --- 2. Setup Section 3: Game Board ---
-        gameBoardUI.setGridLinesVisible(true);
-        // FIX: Ensure the Grid doesn't block mouse clicks
-        gameBoardUI.setMouseTransparent(true);
-
-        for (int r = 0; r < BOARD_ROWS; r++) {
-            for (int c = 0; c < BOARD_COLS; c++) {
-                Rectangle cell = new Rectangle(SQUARE_SIZE, SQUARE_SIZE, Color.WHITE);
-                cell.setStroke(Color.LIGHTGRAY);
-                gameBoardUI.add(cell, c, r);
-            }
-        }
+        GameBoard board = gameModel.getBoard();
+        boardRenderer = useCanvasRenderer
+                ? new CanvasBoardRenderer(board.getRows(), board.getCols(), squareSize)
+                : new GridBoardRenderer(board.getRows(), board.getCols(), squareSize);
+        ghost = new PlacementGhost(board.getRows(), board.getCols(), squareSize);
+        Group boardLayer = new Group(boardRenderer.getNode(), ghost.getNode());
 
         // --- 3. Setup Layout ---
         BorderPane mainLayout = new BorderPane();
@@ -130,7 +302,7 @@ public class GameView extends Application {
 
         // VBox stacks the piece pool and grid vertically
         VBox centerStack = new VBox(0);
-        centerStack.getChildren().addAll(piecePoolUI, gameBoardUI);
+        centerStack.getChildren().addAll(piecePoolUI, boardLayer);
         centerStack.setAlignment(Pos.TOP_CENTER);
 
         // Layer the modal over the VBox stack
@@ -142,25 +314,60 @@ public class GameView extends Application {
         piecePoolUI.setStyle("-fx-background-color: #2e2e2e;");
 
         // --- 4. Setup Handlers and Start Game Logic ---
-        restartButton.setOnAction(e -> gameModel.restartGame());
+        restartButton.setOnAction(e -> startNextGame());
+        undoButton.setOnAction(e -> gameModel.undo());
+        redoButton.setOnAction(e -> gameModel.redo());
+        hintButton.setOnAction(e -> showHint());
 
-        Scene gameScene = new Scene(mainLayout, WINDOW_WIDTH, WINDOW_HEIGHT);
+        Scene scene = new Scene(mainLayout, windowWidth, windowHeight);
 
-        // Key listener for rotation
-        gameScene.setOnKeyPressed(e -> {
+        // Key listener for rotation while dragging, and undo/redo otherwise
+        scene.setOnKeyPressed(e -> {
             if (draggedPiece != null) {
                 if (e.getCode() == KeyCode.RIGHT) {
                     draggedPiece.rotate(true);
                 } else if (e.getCode() == KeyCode.LEFT) {
                     draggedPiece.rotate(false);
                 }
+                updateGhost(dragSceneX, dragSceneY);
+                e.consume();
+            } else if (e.isShortcutDown() && e.getCode() == KeyCode.Z) {
+                if (e.isShiftDown()) {
+                    gameModel.redo();
+                } else {
+                    gameModel.undo();
+                }
+                e.consume();
+            } else if (e.isShortcutDown() && e.getCode() == KeyCode.Y) {
+                gameModel.redo();
                 e.consume();
             }
         });
 
-        gameModel.startGame();
+        return scene;
+    }
+
+    // --- GameListener ---
+
+    @Override
+    public void onTimeChanged(int timeRemaining) {
+        updateTimerDisplay(timeRemaining);
+    }
+
+    @Override
+    public void onStateChanged() {
+        updateView();
+    }
+
+    @Override
+    public void onGameStarted() {
+        hideGameOverModal();
+    }
 
-        return gameScene;
+    @Override
+    public void onGameOver(boolean didWin, String message) {
+        Platform.runLater(this::updateHistoryButtons);
+        showGameOverModal(didWin, message);
     }
 
     // --- Utility Methods ---
@@ -171,66 +378,97 @@ public class GameView extends Application {
 
     public void updateView() {
         Platform.runLater(() -> {
+            if (draggedPiece == null) {
+                ghost.hide(); // A hint is only good for the board and pool it was made for
+            }
             renderGameBoard();
             renderPiecePool();
+            updateHistoryButtons();
         });
     }
 
-    private void renderGameBoard() {
-        List<Rectangle> backgroundCells = new ArrayList<>();
-
-        gameBoardUI.getChildren().forEach(node -> {
-            if (node instanceof Rectangle && GridPane.getColumnIndex(node) != null && GridPane.getRowIndex(node) != null) {
-                if (((Rectangle)node).getFill().equals(Color.WHITE)) {
-                    backgroundCells.add((Rectangle) node);
-                }
-            }
-        });
-
-        gameBoardUI.getChildren().clear();
-        gameBoardUI.getChildren().addAll(backgroundCells);
-
-        int[][] state = gameModel.getBoard().getGridState();
-
-        for (int r = 0; r < BOARD_ROWS; r++) {
-            for (int c = 0; c < BOARD_COLS; c++) {
-                int pieceId = state[r][c];
-
-                if (pieceId != 0) {
-                    Color pieceColor = gameModel.getBoard().getColorForPiece(pieceId);
-
-                    Rectangle placedSquare = new Rectangle(SQUARE_SIZE, SQUARE_SIZE, pieceColor);
-                    placedSquare.setStroke(Color.DARKGRAY);
-
-                    gameBoardUI.add(placedSquare, c, r);
-                }
+    // Shows the move the beam search would make as a ghost over the board
+    private void showHint() {
+        if (draggedPiece != null) {
+            return;
+        }
+        if (hintPlayer == null) {
+            hintPlayer = new BeamSearchPlayer();
+        }
+        List<Piece> pool;
+        long move;
+        // The search takes at most its budget of a few milliseconds, short enough for the FX thread
+        synchronized (gameModel) {
+            if (gameModel.isGameOver()) {
+                return;
             }
+            pool = gameModel.getPiecePool().getAvailablePieces();
+            move = hintPlayer.chooseMove(gameModel.getBoard(), pool);
+        }
+        if (move == BeamSearchPlayer.NO_MOVE) {
+            ghost.hide();
+            return;
         }
+        PentominoType type = pool.get(BeamSearchPlayer.poolIndex(move)).getType();
+        ghost.show(type.getOrientation(BeamSearchPlayer.rotation(move)), BeamSearchPlayer.row(move),
+                BeamSearchPlayer.col(move), true);
+    }
 
-        gameBoardUI.toFront();
+    private void updateHistoryButtons() {
+        undoButton.setDisable(!gameModel.canUndo());
+        redoButton.setDisable(!gameModel.canRedo());
     }
 
-    private void renderPiecePool() {
-        piecePoolUI.getChildren().clear();
+    private void renderGameBoard() {
+        boardRenderer.render(gameModel.getBoard());
+    }
 
+    // Pool nodes are kept across updates, only newly dealt pieces get a new GraphicalPiece
+    private void renderPiecePool() {
         List<Piece> pieces = gameModel.getPiecePool().getAvailablePieces();
+        List<Node> poolNodes = piecePoolUI.getChildren();
+
+        for (int i = poolNodes.size() - 1; i >= 0; i--) {
+            if (!pieces.contains(((GraphicalPiece) poolNodes.get(i)).getModelPiece())) {
+                poolNodes.remove(i);
+            }
+        }
 
         int startX = 50;
         int spacing = 150;
 
         for (int i = 0; i < pieces.size(); i++) {
             Piece piece = pieces.get(i);
-            GraphicalPiece gp = new GraphicalPiece(piece, gameModel);
+            GraphicalPiece gp = findPoolNode(piece);
+            if (gp == null) {
+                gp = new GraphicalPiece(piece, gameModel, this);
+                poolNodes.add(gp);
+            } else if (gp == draggedPiece) {
+                continue; // Stays under the mouse until it is dropped
+            }
 
             int fixedX = startX + (i * spacing);
             int fixedY = 50;
 
             gp.setLayoutX(fixedX);
             gp.setLayoutY(fixedY);
-            piecePoolUI.getChildren().add(gp);
         }
     }
 
+    private GraphicalPiece findPoolNode(Piece piece) {
+        if (draggedPiece != null && draggedPiece.getModelPiece() == piece) {
+            return draggedPiece;
+        }
+        List<Node> poolNodes = piecePoolUI.getChildren();
+        for (int i = 0; i < poolNodes.size(); i++) {
+            GraphicalPiece gp = (GraphicalPiece) poolNodes.get(i);
+            if (gp.getModelPiece() == piece) {
+                return gp;
+            }
+        }
+        return null;
+    }
+
     public void showGameOverModal(boolean didWin, String message) {
         Platform.runLater(() -> {
             modalOverlay.getChildren().clear();
@@ -249,7 +487,7 @@ public class GameView extends Application {
             messageLabel.setTextFill(Color.WHITE);
 
             Button restartBtn = new Button("Restart Game");
-            restartBtn.setOnAction(e -> gameModel.restartGame());
+            restartBtn.setOnAction(e -> startNextGame());
 
             modalContent.getChildren().addAll(statusLabel, messageLabel, restartBtn);
 
@@ -267,16 +505,73 @@ public class GameView extends Application {
 
     public void setDraggedPiece(GraphicalPiece piece) {
         this.draggedPiece = piece;
+        if (piece == null) {
+            ghost.hide();
+        } else {
+            // The board does not move during a drag, so its origin is looked up once per drag
+            Point2D origin = getBoardNode().localToScene(0, 0);
+            boardSceneX = origin.getX();
+            boardSceneY = origin.getY();
+        }
+    }
+
+    /**
+     * Snaps the dragged piece, whose top-left corner is at the given scene position, to
+     * the grid the same way a drop does and shows whether it could be placed there.
+     * Called on every mouse move, so the check is a single PlacementIndex lookup.
+     */
+    public void updateGhost(double pieceSceneX, double pieceSceneY) {
+        dragSceneX = pieceSceneX;
+        dragSceneY = pieceSceneY;
+        if (draggedPiece == null) {
+            return;
+        }
+
+        int size = getSquareSize();
+        int col = (int) Math.round((pieceSceneX - boardSceneX) / size);
+        int row = (int) Math.round((pieceSceneY - boardSceneY) / size);
+
+        GameBoard board = gameModel.getBoard();
+        Orientation orientation = draggedPiece.getModelPiece().getOrientation();
+        if (row + orientation.getRows() <= 0 || col + orientation.getCols() <= 0
+                || row >= board.getRows() || col >= board.getCols()) {
+            ghost.hide(); // Not over the board at all
+            return;
+        }
+
+        boolean legal = pieceSceneX >= boardSceneX && pieceSceneY >= boardSceneY
+                && board.getPlacementIndex().isLegal(orientation.getIndex(), row, col);
+        ghost.show(orientation, row, col, legal);
     }
 
     public int getSquareSize() {
-        return SQUARE_SIZE;
+        return boardRenderer.getCellSize();
+    }
+
+    /** The node the board is drawn into, cell (0, 0) is at its local origin. */
+    public Node getBoardNode() {
+        return boardRenderer.getNode();
     }
 
-    public GridPane getGameBoardUI() {
-        return gameBoardUI;
+    @Override
+    public void stop() {
+        if (hintPlayer != null) {
+            hintPlayer.close();
+        }
+        if (moveLog != null) {
+            // Detach first so no event can arrive while the log of the running game is closed
+            gameModel.setRecorder(null);
+            moveLog.close();
+        }
     }
 
+    /**
+     * Launch options are listed in start(). Startup gets faster still with a class data
+     * sharing archive of the classes loaded while starting: create it once with
+     * -XX:ArchiveClassesAtExit=pentomino.jsa and --startup=exit, then launch with
+     * -XX:SharedArchiveFile=pentomino.jsa (or let the JVM do both on its first run with
+     * -XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=pentomino.jsa).
+     */
     public static void main(String[] args) {
         launch(args);
     }
@@ -1,57 +1,76 @@
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.BorderPane;
-import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.paint.Color;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.Group;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.geometry.Point2D;
 
 public class GraphicalPiece extends Pane {
     private final Piece modelPiece;
     private final PentominoGame gameModel;
+    private final GameView gameView;
     private double mouseAnchorX, mouseAnchorY;
 
-    public GraphicalPiece(Piece piece, PentominoGame controller) {
+    // One node group per orientation of the piece's type, indexed by local orientation index.
+    // Rotations are built up front, mirror images (only reachable through the model) on first use.
+    private final Group[] orientationNodes;
+
+    public GraphicalPiece(Piece piece, PentominoGame controller, GameView view) {
         this.modelPiece = piece;
         this.gameModel = controller;
+        this.gameView = view;
+
+        PentominoType type = piece.getType();
+        this.orientationNodes = new Group[type.getOrientationCount(true)];
+        for (int i = 0; i < type.getOrientationCount(false); i++) {
+            orientationNodes[i] = buildOrientation(type.getOrientation(i));
+        }
+        this.getChildren().add(orientationNodes[0]);
+
         renderShape();
         setupMouseHandlers();
     }
 
+    /** Shows the cached group of the piece's current orientation. */
     public void renderShape() {
-        this.getChildren().clear();
-        int[][] shape = modelPiece.getShapeMatrix();
+        int local = modelPiece.getOrientation().getLocalIndex();
+        if (orientationNodes[local] == null) {
+            orientationNodes[local] = buildOrientation(modelPiece.getOrientation());
+        }
+        if (this.getChildren().get(0) != orientationNodes[local]) {
+            this.getChildren().set(0, orientationNodes[local]);
+        }
+    }
+
+    private Group buildOrientation(Orientation orientation) {
         Color pieceColor = modelPiece.getColor();
-        int squareSize = gameModel.getGameView().getSquareSize();
-
-        for (int r = 0; r < shape.length; r++) {
-            for (int c = 0; c < shape[0].length; c++) {
-                if (shape[r][c] == 1) {
-                    Rectangle square = new Rectangle(squareSize, squareSize, pieceColor);
-                    square.setStroke(Color.BLACK);
-                    square.setTranslateX(c * squareSize);
-                    square.setTranslateY(r * squareSize);
-                    this.getChildren().add(square);
-                }
-            }
+        int squareSize = gameView.getSquareSize();
+
+        Group group = new Group();
+        for (int k = 0; k < orientation.getCellCount(); k++) {
+            Rectangle square = new Rectangle(squareSize, squareSize, pieceColor);
+            square.setStroke(Color.BLACK);
+            square.setTranslateX(orientation.getCellCol(k) * squareSize);
+            square.setTranslateY(orientation.getCellRow(k) * squareSize);
+            group.getChildren().add(square);
         }
+        return group;
     }
 
     public void rotate(boolean clockwise) {
-        if (clockwise) {
-            modelPiece.rotateClockwise();
-        } else {
-            modelPiece.rotateCounterClockwise();
-        }
+        gameModel.rotatePiece(modelPiece, clockwise);
         renderShape();
     }
 
+    public Piece getModelPiece() {
+        return modelPiece;
+    }
 
     private void setupMouseHandlers() {
-        GameView gameView = gameModel.getGameView();
-
         // Drag Start
         this.setOnMousePressed((MouseEvent event) -> {
             gameView.setDraggedPiece(this);
@@ -82,6 +101,7 @@ public class GraphicalPiece extends Pane {
                 this.toFront();
             }
 
+            gameView.updateGhost(event.getSceneX() - mouseAnchorX, event.getSceneY() - mouseAnchorY);
             event.consume();
         });
 
@@ -93,6 +113,7 @@ public class GraphicalPiece extends Pane {
 
             this.toFront();
 
+            gameView.updateGhost(event.getSceneX() - mouseAnchorX, event.getSceneY() - mouseAnchorY);
             event.consume();
         });
 
@@ -100,11 +121,11 @@ public class GraphicalPiece extends Pane {
         this.setOnMouseReleased((MouseEvent event) -> {
             gameView.setDraggedPiece(null);
 
-            GridPane gameBoardUI = gameView.getGameBoardUI();
+            Node boardNode = gameView.getBoardNode();
             int squareSize = gameView.getSquareSize();
 
-            double boardXStart = gameBoardUI.localToScene(0, 0).getX();
-            double boardYStart = gameBoardUI.localToScene(0, 0).getY();
+            double boardXStart = boardNode.localToScene(0, 0).getX();
+            double boardYStart = boardNode.localToScene(0, 0).getY();
 
             double pieceSceneX = event.getSceneX() - mouseAnchorX;
             double pieceSceneY = event.getSceneY() - mouseAnchorY;
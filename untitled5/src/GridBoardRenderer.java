@@ -0,0 +1,76 @@
+import javafx.scene.Node;
+import javafx.scene.layout.GridPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+/** Scene-graph renderer with one retained Rectangle per cell, fine for small boards. */
+public class GridBoardRenderer implements BoardRenderer {
+    private final GridPane gameBoardUI = new GridPane();
+    private final Rectangle[][] cellNodes;
+    private final int rows;
+    private final int cols;
+    private final int cellSize;
+
+    public GridBoardRenderer(int rows, int cols, int cellSize) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cellSize = cellSize;
+        this.cellNodes = new Rectangle[rows][cols];
+
+        gameBoardUI.setGridLinesVisible(true);
+        // FIX: Ensure the Grid doesn't block mouse clicks
+        gameBoardUI.setMouseTransparent(true);
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                Rectangle cell = new Rectangle(cellSize, cellSize, Color.WHITE);
+                cell.setStroke(Color.LIGHTGRAY);
+                cellNodes[r][c] = cell;
+                gameBoardUI.add(cell, c, r);
+            }
+        }
+    }
+
+    @Override
+    public Node getNode() {
+        return gameBoardUI;
+    }
+
+    @Override
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    @Override
+    public void render(GameBoard board) {
+        // Only the cells changed since the last frame are repainted, the nodes themselves stay
+        if (board.isAllDirty()) {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    paintCell(board, r, c);
+                }
+            }
+        } else {
+            for (int i = 0; i < board.getDirtyCount(); i++) {
+                int cell = board.getDirtyCell(i);
+                paintCell(board, cell / cols, cell % cols);
+            }
+        }
+        board.clearDirty();
+
+        gameBoardUI.toFront();
+    }
+
+    private void paintCell(GameBoard board, int row, int col) {
+        int slot = board.getCell(row, col);
+        Rectangle cell = cellNodes[row][col];
+
+        if (slot == 0) {
+            cell.setFill(Color.WHITE);
+            cell.setStroke(Color.LIGHTGRAY);
+        } else {
+            cell.setFill(board.getSlotColor(slot));
+            cell.setStroke(Color.DARKGRAY);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,224 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps many GameServer sessions playing at once, one virtual thread and one
+ * connection each, and prints the move rate and the latency distribution of
+ * PLACE round trips after the first third of the run, which connects the
+ * sessions and warms up both sides. Each session follows its board in a PlacementIndex of its
+ * own, so every move it sends is legal and the server should answer none of
+ * them with ILLEGAL.
+ *
+ * Usage: java LoadGenerator [sessions] [seconds] [thinkMillis] [port] [host] [rows] [cols]
+ */
+public class LoadGenerator {
+
+    // Latency histogram: 8 buckets per power of two of nanoseconds, values within 12.5%
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private final String host;
+    private final int port;
+    private final int rows;
+    private final int cols;
+
+    private final AtomicLongArray latencies = new AtomicLongArray(64 << SUB_BUCKET_BITS);
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder illegal = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger peakConnected = new AtomicInteger();
+
+    public LoadGenerator(String host, int port, int rows, int cols) {
+        this.host = host;
+        this.port = port;
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /** Plays one session until the deadline (System.nanoTime()), starting new games as they end. */
+    private void runSession(long seed, long warmedUp, long deadline, long thinkMillis) {
+        Random random = new Random(seed);
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 512);
+            OutputStream out = socket.getOutputStream();
+            StringBuilder line = new StringBuilder();
+            peakConnected.accumulateAndGet(connected.incrementAndGet(), Math::max);
+
+            PlacementIndex board = null;
+            String[] state = null;
+            try {
+                // Spread the sessions' moves over the think time instead of sending them all at once
+                Thread.sleep(random.nextLong(thinkMillis + 1));
+                while (System.nanoTime() < deadline) {
+                    if (board == null) {
+                        String[] reply = request(in, out, line, "NEW " + rows + " " + cols + " " + random.nextLong());
+                        if (!reply[0].equals("OK")) {
+                            throw new IOException("Server refused a new game: " + String.join(" ", reply));
+                        }
+                        board = new PlacementIndex(rows, cols);
+                        state = request(in, out, line, "POOL");
+                        games.increment();
+                    }
+
+                    int[] move = state[0].equals("OK") ? pickMove(board, state, random) : null;
+                    if (move == null) {
+                        board = null; // Over, or stuck until the next refresh: start again
+                        continue;
+                    }
+
+                    Orientation orientation = PentominoType.values()[move[0]].getOrientation(move[1]);
+                    long start = System.nanoTime();
+                    String[] reply = request(in, out, line, "PLACE " + PentominoType.values()[move[0]].name()
+                            + " " + move[1] + " " + move[2] + " " + move[3]);
+                    long end = System.nanoTime();
+                    if (end > warmedUp) {
+                        recordLatency(end - start);
+                    }
+
+                    switch (reply[0]) {
+                        case "OK" -> {
+                            moves.increment();
+                            for (int k = 0; k < orientation.getCellCount(); k++) {
+                                board.cellFilled(move[2] + orientation.getCellRow(k), move[3] + orientation.getCellCol(k));
+                            }
+                            state = reply;
+                        }
+                        case "NOPIECE" -> state = request(in, out, line, "POOL"); // The pool was refreshed
+                        case "OVER" -> board = null;
+                        default -> {
+                            illegal.increment();
+                            board = null;
+                        }
+                    }
+                    Thread.sleep(thinkMillis);
+                }
+                request(in, out, line, "QUIT");
+            } finally {
+                connected.decrementAndGet();
+            }
+        } catch (IOException e) {
+            failures.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Sends one command and splits the reply line into words
+    private static String[] request(InputStream in, OutputStream out, StringBuilder line, String command)
+            throws IOException {
+        out.write((command + "\n").getBytes(StandardCharsets.US_ASCII));
+        if (!GameServer.readLine(in, line)) {
+            throw new IOException("Server closed the connection");
+        }
+        return line.toString().split(" ");
+    }
+
+    // A random legal move for a piece of the pool in an OK reply: type ordinal, rotation, row, col
+    private int[] pickMove(PlacementIndex board, String[] state, Random random) {
+        int poolSize = state.length - 2;
+        if (poolSize == 0) {
+            return null;
+        }
+        int firstPiece = random.nextInt(poolSize);
+        for (int p = 0; p < poolSize; p++) {
+            PentominoType type = PentominoType.valueOf(state[2 + (firstPiece + p) % poolSize]);
+            int rotations = type.getOrientationCount(false);
+            int firstRotation = random.nextInt(rotations);
+            for (int i = 0; i < rotations; i++) {
+                int rotation = (firstRotation + i) % rotations;
+                int o = type.getOrientation(rotation).getIndex();
+                if (board.getAnchorCount(o) == 0) {
+                    continue;
+                }
+                int anchor = board.nextLegalAnchor(o, random.nextInt(rows * cols));
+                if (anchor < 0) {
+                    anchor = board.nextLegalAnchor(o, 0);
+                }
+                return new int[] {type.ordinal(), rotation, anchor / cols, anchor % cols};
+            }
+        }
+        return null;
+    }
+
+    private void recordLatency(long nanos) {
+        int log = 63 - Long.numberOfLeadingZeros(Math.max(nanos, 1));
+        int sub = log < SUB_BUCKET_BITS ? 0 : (int) (nanos >>> (log - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+        latencies.incrementAndGet((log << SUB_BUCKET_BITS) | sub);
+    }
+
+    // Upper bound of the bucket that holds the given fraction of all recorded latencies
+    private long latencyPercentile(double fraction) {
+        long total = 0;
+        for (int i = 0; i < latencies.length(); i++) {
+            total += latencies.get(i);
+        }
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < latencies.length(); i++) {
+            seen += latencies.get(i);
+            if (seen >= rank && latencies.get(i) > 0) {
+                int log = i >>> SUB_BUCKET_BITS;
+                int sub = i & ((1 << SUB_BUCKET_BITS) - 1);
+                long base = 1L << log;
+                return log < SUB_BUCKET_BITS ? base * 2 - 1 : base + ((sub + 1L) << (log - SUB_BUCKET_BITS)) - 1;
+            }
+        }
+        return 0;
+    }
+
+    public void run(int sessions, int seconds, long thinkMillis, long seed) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        long warmedUp = start + seconds * 1_000_000_000L / 3;
+        String serverSessions = "?";
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                long sessionSeed = seed + i;
+                executor.submit(() -> runSession(sessionSeed, warmedUp, deadline, thinkMillis));
+            }
+            // Halfway through, every session should be connected: ask the server how many it holds
+            Thread.sleep(seconds * 500L);
+            try (Socket socket = new Socket(host, port)) {
+                StringBuilder line = new StringBuilder();
+                String[] stats = request(new BufferedInputStream(socket.getInputStream()), socket.getOutputStream(), line, "STATS");
+                serverSessions = stats[1].substring("sessions=".length());
+            } catch (IOException e) {
+                System.out.println("Cannot ask the server for its stats: " + e.getMessage());
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d sessions (peak %d connected, server held %s at half time), %d failed%n",
+                sessions, peakConnected.get(), serverSessions, failures.sum());
+        System.out.printf("%d moves in %.1fs (%.0f moves/sec), %d games, %d illegal%n",
+                moves.sum(), elapsed, moves.sum() / elapsed, games.sum(), illegal.sum());
+        System.out.printf("PLACE latency after %ds: p50 %.2fms, p90 %.2fms, p99 %.2fms, p99.9 %.2fms, max %.2fms%n", seconds / 3,
+                latencyPercentile(0.5) / 1e6, latencyPercentile(0.9) / 1e6, latencyPercentile(0.99) / 1e6,
+                latencyPercentile(0.999) / 1e6, latencyPercentile(1.0) / 1e6);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long thinkMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000L;
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : GameServer.DEFAULT_PORT;
+        String host = args.length > 4 ? args[4] : "127.0.0.1";
+        int rows = args.length > 5 ? Integer.parseInt(args[5]) : GameBoard.DEFAULT_ROWS;
+        int cols = args.length > 6 ? Integer.parseInt(args[6]) : GameBoard.DEFAULT_COLS;
+
+        new LoadGenerator(host, port, rows, cols).run(sessions, seconds, thinkMillis, 42L);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simulated clock for headless games: time only moves when advance() is called,
+ * and due tasks run on the calling thread in time order. Not thread-safe, give
+ * every simulated game its own instance.
+ */
+public class ManualClock implements GameClock {
+
+    private static class ScheduledTask implements Task {
+        private final Runnable task;
+        private final long periodMillis;
+        private long nextRun;
+        private boolean cancelled;
+
+        ScheduledTask(Runnable task, long nextRun, long periodMillis) {
+            this.task = task;
+            this.nextRun = nextRun;
+            this.periodMillis = periodMillis;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+    private long now = 0;
+
+    @Override
+    public Task scheduleAtFixedRate(Runnable task, long delayMillis, long periodMillis) {
+        ScheduledTask scheduled = new ScheduledTask(task, now + delayMillis, periodMillis);
+        tasks.add(scheduled);
+        return scheduled;
+    }
+
+    /** Moves time forward, running every task that falls due on the way. */
+    public void advance(long millis) {
+        long target = now + millis;
+
+        while (true) {
+            tasks.removeIf(t -> t.cancelled);
+
+            ScheduledTask next = null;
+            for (ScheduledTask t : tasks) {
+                if (t.nextRun <= target && (next == null || t.nextRun < next.nextRun)) {
+                    next = t;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+
+            now = next.nextRun;
+            next.nextRun += next.periodMillis;
+            next.task.run();
+        }
+        now = target;
+    }
+
+    public long getTimeMillis() {
+        return now;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+import java.util.Arrays;
+
+/**
+ * Undo/redo history of the placements of one game, kept as per-move deltas: where
+ * the piece went, where it was in the pool and which piece was dealt in its place.
+ * A move costs one packed long and two references, however large the board, and
+ * undo and redo only move a cursor. Recording a new move drops the moves that were
+ * undone, like in an editor. Not thread-safe, PentominoGame uses it under its lock.
+ */
+public class MoveHistory {
+    // Packed move: row, col and pool index in 16 bits each, orientation local index above them
+    private static final int FIELD_BITS = 16;
+    private static final long FIELD_MASK = (1L << FIELD_BITS) - 1;
+
+    private long[] moves = new long[64];
+    private Piece[] pieces = new Piece[64];
+    private Piece[] replacements = new Piece[64];
+    private int size;     // Moves recorded, done or undone
+    private int position; // Moves currently done, the next undo reverts move position - 1
+
+    /**
+     * Records a placement of piece, turned as it is now, at (row, col). It was at poolIndex
+     * in the pool and replacement (may be null) was dealt after it. Clears the redo history.
+     */
+    public void record(Piece piece, int row, int col, int poolIndex, Piece replacement) {
+        if (row > FIELD_MASK || col > FIELD_MASK || poolIndex > FIELD_MASK) {
+            throw new IllegalArgumentException("Move does not fit in the history: " + row + "," + col
+                    + " from pool index " + poolIndex);
+        }
+        // Release the pieces of the moves that can no longer be redone
+        Arrays.fill(pieces, position, size, null);
+        Arrays.fill(replacements, position, size, null);
+        if (position == moves.length) {
+            moves = Arrays.copyOf(moves, position * 2);
+            pieces = Arrays.copyOf(pieces, position * 2);
+            replacements = Arrays.copyOf(replacements, position * 2);
+        }
+        moves[position] = (long) piece.getOrientation().getLocalIndex() << (3 * FIELD_BITS)
+                | (long) poolIndex << (2 * FIELD_BITS) | (long) row << FIELD_BITS | col;
+        pieces[position] = piece;
+        replacements[position] = replacement;
+        size = ++position;
+    }
+
+    /** Steps back over the last done move and returns its number, or -1 when there is none. */
+    public int undo() {
+        return position == 0 ? -1 : --position;
+    }
+
+    /** Steps forward over the next undone move and returns its number, or -1 when there is none. */
+    public int redo() {
+        return position == size ? -1 : position++;
+    }
+
+    /** Forgets every move, e.g. when a new game starts or the pool is dealt anew. */
+    public void clear() {
+        Arrays.fill(pieces, 0, size, null);
+        Arrays.fill(replacements, 0, size, null);
+        size = 0;
+        position = 0;
+    }
+
+    public boolean canUndo() { return position > 0; }
+    public boolean canRedo() { return position < size; }
+    public int getPosition() { return position; }
+    public int getSize() { return size; }
+
+    // --- Fields of move i ---
+
+    public Piece getPiece(int i) { return pieces[i]; }
+    public Piece getReplacement(int i) { return replacements[i]; }
+    public int getRow(int i) { return (int) ((moves[i] >>> FIELD_BITS) & FIELD_MASK); }
+    public int getCol(int i) { return (int) (moves[i] & FIELD_MASK); }
+    public int getPoolIndex(int i) { return (int) ((moves[i] >>> (2 * FIELD_BITS)) & FIELD_MASK); }
+    public int getOrientation(int i) { return (int) (moves[i] >>> (3 * FIELD_BITS)); }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Binary format of a game log, one file per game, shared by MoveLogWriter and GameReplay.
+ *
+ * Header: magic, version byte, seed (zigzag varlong), game number, rows, cols (varints).
+ * Then one record per event, a tag byte followed by its fields as unsigned varints:
+ *   DEAL        type ordinal byte, PiecePalette index byte (the piece's sequence number is implicit)
+ *   ROTATE_CW   piece
+ *   ROTATE_CCW  piece
+ *   PLACE       piece, orientation, row, col, tick
+ *   REFRESH     pool size (the pool becomes the last that many pieces dealt)
+ *   TICK        (nothing, the tick count is the number of TICK records so far)
+ *   END         1 if the game was won, 0 otherwise, then tick
+ *   UNDO        piece, orientation, row, col, pool index, replacement + 1 (0 for none), tick
+ *   REDO        piece, orientation, row, col, replacement + 1 (0 for none), tick
+ * Pieces are referred to by the order in which they were dealt, starting at 0.
+ * UNDO and REDO are only written from version 2 on, version 1 logs read the same.
+ * Before version 3 DEAL held the color as 3 bytes RGB.
+ * A typical move costs 6 bytes and a game second 1 byte.
+ */
+public final class MoveLog {
+    public static final int MAGIC = 0x504D4C47; // "PMLG"
+    public static final int VERSION = 3;
+
+    public static final byte DEAL = 1;
+    public static final byte ROTATE_CW = 2;
+    public static final byte ROTATE_CCW = 3;
+    public static final byte PLACE = 4;
+    public static final byte REFRESH = 5;
+    public static final byte TICK = 6;
+    public static final byte END = 7;
+    public static final byte UNDO = 8;
+    public static final byte REDO = 9;
+
+    /** Longest encoding of any single record, header excluded. */
+    public static final int MAX_RECORD_BYTES = 1 + 7 * 5;
+
+    private MoveLog() {
+    }
+
+    public static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint at " + buffer.position());
+    }
+
+    public static void putVarlong(ByteBuffer buffer, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+    }
+
+    public static long getVarlong(ByteBuffer buffer) {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalStateException("Malformed varlong at " + buffer.position());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,215 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * GameRecorder that writes each game to its own MoveLog file in a directory,
+ * named game-[seed]-[game number].pml. Records are collected in a direct buffer
+ * and written out when it fills up and when the game ends, so a game costs a
+ * handful of write calls. Only ever called under the game's lock. Events that
+ * arrive between games (e.g. a rotation after the game ended) are not logged.
+ */
+public class MoveLogWriter implements GameRecorder, Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long seed;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private FileChannel channel;
+    private Path currentFile;
+    private int gameNumber;
+
+    // Pieces dealt in the current game, indexed by their sequence number in the log
+    private Piece[] dealt = new Piece[64];
+    private int dealtCount;
+
+    /** Seed is the one the game's piece source was created with, stored for reference. */
+    public MoveLogWriter(Path directory, long seed) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.seed = seed;
+    }
+
+    @Override
+    public void onGameStarted(int rows, int cols) {
+        closeCurrent();
+        gameNumber++;
+        dealtCount = 0;
+
+        currentFile = directory.resolve("game-" + seed + "-" + gameNumber + ".pml");
+        try {
+            channel = FileChannel.open(currentFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create move log " + currentFile, e);
+        }
+
+        buffer.clear();
+        buffer.putInt(MoveLog.MAGIC);
+        buffer.put((byte) MoveLog.VERSION);
+        MoveLog.putVarlong(buffer, seed);
+        MoveLog.putVarint(buffer, gameNumber);
+        MoveLog.putVarint(buffer, rows);
+        MoveLog.putVarint(buffer, cols);
+    }
+
+    @Override
+    public void onPieceDealt(Piece piece) {
+        if (!reserve()) {
+            return;
+        }
+        if (dealtCount == dealt.length) {
+            dealt = Arrays.copyOf(dealt, dealtCount * 2);
+        }
+        dealt[dealtCount++] = piece;
+
+        buffer.put(MoveLog.DEAL);
+        buffer.put((byte) piece.getType().ordinal());
+        buffer.put((byte) piece.getColorIndex());
+    }
+
+    @Override
+    public void onPieceRotated(Piece piece, boolean clockwise) {
+        if (!reserve()) {
+            return;
+        }
+        buffer.put(clockwise ? MoveLog.ROTATE_CW : MoveLog.ROTATE_CCW);
+        MoveLog.putVarint(buffer, sequenceOf(piece));
+    }
+
+    @Override
+    public void onPiecePlaced(Piece piece, int row, int col, int tick) {
+        if (!reserve()) {
+            return;
+        }
+        buffer.put(MoveLog.PLACE);
+        MoveLog.putVarint(buffer, sequenceOf(piece));
+        MoveLog.putVarint(buffer, piece.getOrientation().getLocalIndex());
+        MoveLog.putVarint(buffer, row);
+        MoveLog.putVarint(buffer, col);
+        MoveLog.putVarint(buffer, tick);
+    }
+
+    @Override
+    public void onMoveUndone(Piece piece, int row, int col, int poolIndex, Piece replacement, int tick) {
+        if (!reserve()) {
+            return;
+        }
+        buffer.put(MoveLog.UNDO);
+        MoveLog.putVarint(buffer, sequenceOf(piece));
+        MoveLog.putVarint(buffer, piece.getOrientation().getLocalIndex());
+        MoveLog.putVarint(buffer, row);
+        MoveLog.putVarint(buffer, col);
+        MoveLog.putVarint(buffer, poolIndex);
+        MoveLog.putVarint(buffer, replacement == null ? 0 : sequenceOf(replacement) + 1);
+        MoveLog.putVarint(buffer, tick);
+    }
+
+    @Override
+    public void onMoveRedone(Piece piece, int row, int col, Piece replacement, int tick) {
+        if (!reserve()) {
+            return;
+        }
+        buffer.put(MoveLog.REDO);
+        MoveLog.putVarint(buffer, sequenceOf(piece));
+        MoveLog.putVarint(buffer, piece.getOrientation().getLocalIndex());
+        MoveLog.putVarint(buffer, row);
+        MoveLog.putVarint(buffer, col);
+        MoveLog.putVarint(buffer, replacement == null ? 0 : sequenceOf(replacement) + 1);
+        MoveLog.putVarint(buffer, tick);
+    }
+
+    @Override
+    public void onPoolRefreshed(int poolSize) {
+        if (!reserve()) {
+            return;
+        }
+        buffer.put(MoveLog.REFRESH);
+        MoveLog.putVarint(buffer, poolSize);
+    }
+
+    @Override
+    public void onTick(int tick) {
+        if (!reserve()) {
+            return;
+        }
+        buffer.put(MoveLog.TICK);
+    }
+
+    @Override
+    public void onGameOver(boolean didWin, int tick) {
+        if (!reserve()) {
+            return;
+        }
+        buffer.put(MoveLog.END);
+        buffer.put((byte) (didWin ? 1 : 0));
+        MoveLog.putVarint(buffer, tick);
+        closeCurrent();
+    }
+
+    /** File of the game being recorded, or of the last one once it ended. */
+    public Path getCurrentFile() {
+        return currentFile;
+    }
+
+    /** Writes out and closes the log of a game that has not ended yet. */
+    @Override
+    public void close() {
+        closeCurrent();
+    }
+
+    // Pool pieces are always among the last few dealt, so search from the end
+    private int sequenceOf(Piece piece) {
+        for (int i = dealtCount - 1; i >= 0; i--) {
+            if (dealt[i] == piece) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("The " + piece.getType() + " piece was not dealt in this game");
+    }
+
+    // False when no game is being recorded
+    private boolean reserve() {
+        if (channel == null) {
+            return false;
+        }
+        if (buffer.remaining() < MoveLog.MAX_RECORD_BYTES) {
+            flush();
+        }
+        return true;
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write move log " + currentFile, e);
+        }
+        buffer.clear();
+    }
+
+    private void closeCurrent() {
+        if (channel == null) {
+            return;
+        }
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close move log " + currentFile, e);
+        } finally {
+            channel = null;
+            // Drop the references so pieces of finished games can be collected
+            Arrays.fill(dealt, 0, dealtCount, null);
+        }
+    }
+}
\ No newline at end of file
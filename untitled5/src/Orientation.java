@@ -0,0 +1,91 @@
+/**
+ * One fixed orientation of a PentominoType. Instances are built once by
+ * PentominoType and shared by every Piece, so nothing here may be modified.
+ */
+public final class Orientation {
+    private final PentominoType type;
+    private final int index;      // Unique across all types, see PentominoType.getOrientationByIndex
+    private final int localIndex; // Position in the owning type's table
+    private final boolean mirrored;
+
+    private final int[][] matrix;
+    private final int rows;
+    private final int cols;
+    private final int[] cellRows;
+    private final int[] cellCols;
+    private final long[] rowMasks;
+    private final long mask;
+
+    // Local indices of the neighbouring orientations in the owning type's table
+    private final int clockwise;
+    private final int counterClockwise;
+    private final int mirror;
+
+    Orientation(PentominoType type, int index, int localIndex, boolean mirrored, int[][] matrix,
+                int clockwise, int counterClockwise, int mirror) {
+        this.type = type;
+        this.index = index;
+        this.localIndex = localIndex;
+        this.mirrored = mirrored;
+        this.matrix = matrix;
+        this.rows = matrix.length;
+        this.cols = matrix[0].length;
+        this.clockwise = clockwise;
+        this.counterClockwise = counterClockwise;
+        this.mirror = mirror;
+
+        int cellCount = 0;
+        for (int[] row : matrix) {
+            for (int cell : row) {
+                cellCount += cell;
+            }
+        }
+
+        this.cellRows = new int[cellCount];
+        this.cellCols = new int[cellCount];
+        this.rowMasks = new long[rows];
+        long packed = 0L;
+        int k = 0;
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (matrix[i][j] == 1) {
+                    cellRows[k] = i;
+                    cellCols[k] = j;
+                    k++;
+                    rowMasks[i] |= 1L << j;
+                    packed |= 1L << (i * 8 + j);
+                }
+            }
+        }
+        this.mask = packed;
+    }
+
+    public PentominoType getType() { return type; }
+    public int getIndex() { return index; }
+    public int getLocalIndex() { return localIndex; }
+    public boolean isMirrored() { return mirrored; }
+
+    /** Shared shape matrix of this orientation, do not modify it. */
+    public int[][] getMatrix() { return matrix; }
+
+    /** Height of the bounding box. */
+    public int getRows() { return rows; }
+
+    /** Width of the bounding box. */
+    public int getCols() { return cols; }
+
+    public int getCellCount() { return cellRows.length; }
+    public int getCellRow(int k) { return cellRows[k]; }
+    public int getCellCol(int k) { return cellCols[k]; }
+
+    /** Shared row masks, bit j of entry i is set when cell (i, j) is filled. Do not modify. */
+    public long[] getRowMasks() { return rowMasks; }
+
+    /** The whole shape packed into one long, cell (i, j) is bit i * 8 + j. */
+    public long getMask() { return mask; }
+
+    public int getClockwise() { return clockwise; }
+    public int getCounterClockwise() { return counterClockwise; }
+    public int getMirror() { return mirror; }
+}
\ No newline at end of file
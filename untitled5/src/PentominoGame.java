@@ -1,103 +1,365 @@
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class PentominoGame {
     private final GameBoard board;
     private final PiecePool piecePool;
-    private final GameView gameView;
+    private final GameClock clock;
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
 
-    private int timeRemaining;
-    private boolean isGameOver = false;
-    private Timer gameTimer;
+    // Written under the game's lock, read without it by listeners and the UI
+    private volatile int timeRemaining;
+    private volatile boolean isGameOver = false;
+    private volatile boolean didWin = false;
+    private volatile int ticks; // Seconds played in the current game
+    private GameClock.Task gameTimer;
+    private GameRecorder recorder;
+    private GameRecorder activeRecorder; // The recorder of the running game, if it is recorded
+    private PieceSource puzzlePieces; // Deals the running puzzle's pieces, null in a normal game
+    private final MoveHistory history = new MoveHistory();
 
-    public PentominoGame(GameView view) {
-        this.board = new GameBoard();
-        this.piecePool = new PiecePool();
-        this.gameView = view;
+    // Dead-board check after each placement, kept short since it runs on the caller's thread.
+    // The exact-cover matrix grows with the board, so large boards skip the check.
+    private static final int SOLVER_MAX_CELLS = 400;
+    private static final int SOLVER_TABLE_ENTRIES = 1 << 14;
+    private long solverBudgetMillis = 20;
+    private TilingSolver solver; // Created on first use, it is large compared to the rest of a game
+    private TranspositionTable solverTable; // Positions already proven, kept across games
+
+    public PentominoGame() {
+        this(GameBoard.DEFAULT_ROWS, GameBoard.DEFAULT_COLS);
+    }
+
+    public PentominoGame(int rows, int cols) {
+        this(GameScheduler.shared(), new RandomPieceSource(), rows, cols);
+    }
+
+    public PentominoGame(GameClock clock, PieceSource pieceSource) {
+        this(clock, pieceSource, GameBoard.DEFAULT_ROWS, GameBoard.DEFAULT_COLS);
+    }
+
+    /** Game on a rows x cols board, driven by the given clock and dealt from the given source. */
+    public PentominoGame(GameClock clock, PieceSource pieceSource, int rows, int cols) {
+        this.board = new GameBoard(rows, cols);
+        // Deals go through the game so the recorder sees every piece
+        this.piecePool = new PiecePool(() -> {
+            Piece piece = puzzlePieces != null ? puzzlePieces.nextPiece() : pieceSource.nextPiece();
+            if (activeRecorder != null) {
+                activeRecorder.onPieceDealt(piece);
+            }
+            return piece;
+        });
+        this.clock = clock;
+    }
+
+    /** Time the dead-board check may take after each placement, 0 turns the check off. */
+    public void setSolverBudgetMillis(long solverBudgetMillis) {
+        this.solverBudgetMillis = solverBudgetMillis;
+    }
+
+    /** Records every event of the games started from now on, null to stop recording. */
+    public synchronized void setRecorder(GameRecorder recorder) {
+        this.recorder = recorder;
+        if (recorder == null) {
+            activeRecorder = null;
+        }
+    }
+
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GameListener listener) {
+        listeners.remove(listener);
     }
 
-    public void startGame() {
+    public synchronized void startGame() {
+        start(null);
+    }
+
+    /**
+     * Starts a game on the puzzle's board, its fixed pieces in place, dealing the puzzle's
+     * pieces instead of the game's own. Like a resumed game, a puzzle is not recorded.
+     */
+    public synchronized void startPuzzle(Puzzle puzzle) {
+        start(puzzle);
+    }
+
+    private void start(Puzzle puzzle) {
         if (gameTimer != null) gameTimer.cancel();
 
         isGameOver = false;
+        didWin = false;
         timeRemaining = 300;
+        ticks = 0;
         board.reset();
         piecePool.reset();
+        history.clear();
+        if (solverTable != null) {
+            solverTable.newGeneration();
+        }
+        if (puzzle != null) {
+            puzzle.fill(board);
+            puzzlePieces = puzzle.newPieceSource();
+            activeRecorder = null;
+        } else {
+            puzzlePieces = null;
+            activeRecorder = recorder;
+        }
+        if (activeRecorder != null) {
+            activeRecorder.onGameStarted(board.getRows(), board.getCols());
+        }
 
-        piecePool.startPieceTimer(gameView);
+        piecePool.startPieceTimer(clock, this, this::poolRefreshed);
 
         // Ensure immediate pieces before the 10s interval hits.
         piecePool.generateRandomPiece();
         piecePool.generateRandomPiece();
         piecePool.generateRandomPiece();
 
-        gameTimer = new Timer();
-        gameTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                updateTimer();
-            }
-        }, 1000, 1000);
+        gameTimer = clock.scheduleAtFixedRate(this::updateTimer, 1000, 1000);
 
-        gameView.updateView();
-        gameView.hideGameOverModal();
+        fireStateChanged();
+        for (GameListener listener : listeners) {
+            listener.onGameStarted();
+        }
     }
 
-    private void updateTimer() {
+    private synchronized void updateTimer() {
         if (isGameOver) {
             gameTimer.cancel();
             return;
         }
 
         timeRemaining--;
-        gameView.updateTimerDisplay(timeRemaining);
+        ticks++;
+        if (activeRecorder != null) {
+            activeRecorder.onTick(ticks);
+        }
+        for (GameListener listener : listeners) {
+            listener.onTimeChanged(timeRemaining);
+        }
 
         if (timeRemaining <= 0) {
             endGame(false, "Time Expired!");
         }
-
         // Check for loss condition (no moves left) every second
         // FIX: The methods called here are required by image_af9981.png
-        if (!board.isFull() && !board.hasValidMove(piecePool.getAvailablePieces())) {
+        else if (!board.isFull() && !board.hasValidMove(piecePool.getAvailablePieces())) {
             endGame(false, "No More Moves!");
         }
     }
 
+    /**
+     * Continues a saved game with the given pool and clock. The caller must hold this
+     * game's lock and have refilled the board already (see SnapshotStore). A resumed
+     * game is not recorded, its log would not start from an empty board.
+     */
+    public synchronized void resumeGame(List<Piece> pool, int timeRemaining, int ticks) {
+        if (gameTimer != null) gameTimer.cancel();
+
+        isGameOver = false;
+        didWin = false;
+        this.timeRemaining = timeRemaining;
+        this.ticks = ticks;
+        activeRecorder = null;
+        puzzlePieces = null;
+        history.clear();
+        piecePool.reset();
+        piecePool.setPieces(pool);
+
+        piecePool.startPieceTimer(clock, this, this::poolRefreshed);
+        gameTimer = clock.scheduleAtFixedRate(this::updateTimer, 1000, 1000);
+
+        fireStateChanged();
+        for (GameListener listener : listeners) {
+            listener.onGameStarted();
+            listener.onTimeChanged(timeRemaining);
+        }
+    }
+
     public void restartGame() {
         startGame();
     }
 
+    /** Ends a running game as lost, e.g. when its player left, so its timers stop. */
+    public synchronized void abandonGame() {
+        if (!isGameOver && gameTimer != null) {
+            endGame(false, "Game Abandoned!");
+        }
+    }
+
     private void endGame(boolean didWin, String message) {
         isGameOver = true;
+        this.didWin = didWin;
         gameTimer.cancel();
         piecePool.reset();
+        if (activeRecorder != null) {
+            activeRecorder.onGameOver(didWin, ticks);
+        }
 
-        gameView.showGameOverModal(didWin, message);
+        for (GameListener listener : listeners) {
+            listener.onGameOver(didWin, message);
+        }
     }
 
-    public boolean placePiece(Piece piece, int row, int col) {
+    public synchronized boolean placePiece(Piece piece, int row, int col) {
         // FIX: The methods called here are required by image_af9981.png
         if (board.isPlacementValid(piece, row, col)) {
+            // A piece that was not on offer goes to the front of the pool if the move is undone
+            int poolIndex = Math.max(piecePool.getAvailablePieces().indexOf(piece), 0);
             board.place(piece, row, col);
             piecePool.removePiece(piece);
+            if (activeRecorder != null) {
+                activeRecorder.onPiecePlaced(piece, row, col, ticks);
+            }
 
             piecePool.generateRandomPiece();
+            List<Piece> pool = piecePool.getAvailablePieces();
+            history.record(piece, row, col, poolIndex, pool.get(pool.size() - 1));
 
-            gameView.updateView();
-
-            if (board.isFull()) {
-                endGame(true, "Grid Complete!");
-            }
-            else if (!board.hasValidMove(piecePool.getAvailablePieces())) {
-                endGame(false, "No More Moves!");
-            }
+            fireStateChanged();
+            checkBoardAfterPlacement();
             return true;
         }
         return false;
     }
 
+    /**
+     * Takes back the last placement: its cells are emptied, the piece goes back to where it
+     * was in the pool and the piece dealt in its place is withdrawn. Works back to the start
+     * of the game or the last pool refresh, but not once it is over. Returns false when there
+     * is nothing to undo.
+     */
+    public synchronized boolean undo() {
+        if (isGameOver) {
+            return false;
+        }
+        int move = history.undo();
+        if (move < 0) {
+            return false;
+        }
+        Piece piece = history.getPiece(move);
+        Piece replacement = history.getReplacement(move);
+        int row = history.getRow(move);
+        int col = history.getCol(move);
+
+        piece.setOrientation(history.getOrientation(move));
+        board.remove(piece, row, col);
+        if (replacement != null) {
+            piecePool.removePiece(replacement);
+        }
+        piecePool.insertPiece(history.getPoolIndex(move), piece);
+        if (activeRecorder != null) {
+            activeRecorder.onMoveUndone(piece, row, col, history.getPoolIndex(move), replacement, ticks);
+        }
+
+        fireStateChanged();
+        return true;
+    }
+
+    /**
+     * Makes the last undone placement again, with the same piece dealt after it. Placing
+     * a piece or a pool refresh ends the redo history. Returns false when there is nothing to redo.
+     */
+    public synchronized boolean redo() {
+        if (isGameOver) {
+            return false;
+        }
+        int move = history.redo();
+        if (move < 0) {
+            return false;
+        }
+        Piece piece = history.getPiece(move);
+        Piece replacement = history.getReplacement(move);
+        int row = history.getRow(move);
+        int col = history.getCol(move);
+
+        piece.setOrientation(history.getOrientation(move));
+        board.place(piece, row, col);
+        piecePool.removePiece(piece);
+        if (replacement != null) {
+            piecePool.addPiece(replacement);
+        }
+        if (activeRecorder != null) {
+            activeRecorder.onMoveRedone(piece, row, col, replacement, ticks);
+        }
+
+        fireStateChanged();
+        checkBoardAfterPlacement();
+        return true;
+    }
+
+    public synchronized boolean canUndo() { return !isGameOver && history.canUndo(); }
+    public synchronized boolean canRedo() { return !isGameOver && history.canRedo(); }
+
+    private void checkBoardAfterPlacement() {
+        if (board.isFull()) {
+            endGame(true, "Grid Complete!");
+        }
+        else if (!board.hasValidMove(piecePool.getAvailablePieces())) {
+            endGame(false, "No More Moves!");
+        }
+        else if (board.hasDeadRegion()) {
+            // Free to check on any board size, unlike the solver below
+            endGame(false, "Board Cannot Be Completed!");
+        }
+        else if (solverBudgetMillis > 0 && board.getRows() * board.getCols() <= SOLVER_MAX_CELLS
+                && isProvenDead()) {
+            // A timeout only means "unknown", so just a proven dead board ends the game
+            endGame(false, "Board Cannot Be Completed!");
+        }
+    }
+
+    /** Rotates a piece by a quarter turn. Goes through the game so the rotation is recorded. */
+    public synchronized void rotatePiece(Piece piece, boolean clockwise) {
+        if (clockwise) {
+            piece.rotateClockwise();
+        } else {
+            piece.rotateCounterClockwise();
+        }
+        if (activeRecorder != null) {
+            activeRecorder.onPieceRotated(piece, clockwise);
+        }
+    }
+
+    // Called by the pool timer, under this game's lock, after it dealt a new pool
+    private void poolRefreshed() {
+        // Undo and redo would bring back pieces of the pool that was just replaced
+        history.clear();
+        if (activeRecorder != null) {
+            activeRecorder.onPoolRefreshed(piecePool.getAvailablePieces().size());
+        }
+        fireStateChanged();
+    }
+
+    /**
+     * Builds the dead-board solver now instead of on the first placement, so a caller
+     * with time to spare (the start screen) keeps it out of the first move.
+     */
+    public synchronized void prepareSolver() {
+        if (solver == null && solverBudgetMillis > 0 && board.getRows() * board.getCols() <= SOLVER_MAX_CELLS) {
+            solver = new TilingSolver(board.getRows(), board.getCols(), false);
+            solverTable = new TranspositionTable(SOLVER_TABLE_ENTRIES, TranspositionTable.Policy.DEPTH_PREFERRED);
+            solver.setTranspositionTable(solverTable);
+        }
+    }
+
+    private boolean isProvenDead() {
+        prepareSolver();
+        return solver.check(board, solverBudgetMillis) == DancingLinks.Status.EXHAUSTED;
+    }
+
+    private void fireStateChanged() {
+        for (GameListener listener : listeners) {
+            listener.onStateChanged();
+        }
+    }
+
     public GameBoard getBoard() { return board; }
     public PiecePool getPiecePool() { return piecePool; }
-    public GameView getGameView() { return gameView; }
+    public int getTimeRemaining() { return timeRemaining; }
+    public int getTicks() { return ticks; }
+    public boolean isGameOver() { return isGameOver; }
+    public boolean didWin() { return didWin; }
 }
\ No newline at end of file
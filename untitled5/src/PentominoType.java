@@ -1,3 +1,5 @@
+import java.util.Arrays;
+
 public enum PentominoType {
     // 1. I-pentomino (1x5 stick)
     I(new int[][] {{1, 1, 1, 1, 1}}),
@@ -58,13 +60,139 @@ public enum PentominoType {
 
     private final int[][] initialShape;
 
+    // Distinct orientations of this shape. The first rotationCount entries are the
+    // clockwise rotations of the initial shape, the rest are their mirror images.
+    private Orientation[] orientations;
+    private int rotationCount;
+
+    private static final Orientation[] ALL_ORIENTATIONS;
+
     PentominoType(int[][] shape) {
         this.initialShape = shape;
     }
 
+    static {
+        PentominoType[] types = values();
+        int total = 0;
+        for (PentominoType type : types) {
+            type.buildOrientations(total);
+            total += type.orientations.length;
+        }
+
+        ALL_ORIENTATIONS = new Orientation[total];
+        for (PentominoType type : types) {
+            for (Orientation orientation : type.orientations) {
+                ALL_ORIENTATIONS[orientation.getIndex()] = orientation;
+            }
+        }
+    }
+
+    private void buildOrientations(int firstIndex) {
+        int[][][] rotations = new int[4][][];
+        int[][][] mirrors = new int[4][][];
+        int[][][] shapes = new int[8][][];
+        boolean[] mirrored = new boolean[8];
+        int count = 0;
+
+        // Walk the clockwise rotations until the shape repeats
+        int[][] shape = initialShape;
+        int rotationsFound = 0;
+        while (rotationsFound < 4 && indexOf(rotations, rotationsFound, shape) < 0) {
+            rotations[rotationsFound++] = shape;
+            shape = rotateClockwise(shape);
+        }
+        for (int i = 0; i < rotationsFound; i++) {
+            shapes[count++] = rotations[i];
+        }
+
+        // Mirror images only count when they are not already one of the rotations
+        shape = mirror(initialShape);
+        int mirrorsFound = 0;
+        if (indexOf(rotations, rotationsFound, shape) < 0) {
+            while (mirrorsFound < 4 && indexOf(mirrors, mirrorsFound, shape) < 0) {
+                mirrors[mirrorsFound++] = shape;
+                shape = rotateClockwise(shape);
+            }
+        }
+        for (int i = 0; i < mirrorsFound; i++) {
+            mirrored[count] = true;
+            shapes[count++] = mirrors[i];
+        }
+
+        orientations = new Orientation[count];
+        rotationCount = rotationsFound;
+
+        for (int i = 0; i < count; i++) {
+            int base = mirrored[i] ? rotationsFound : 0;
+            int size = mirrored[i] ? mirrorsFound : rotationsFound;
+            int offset = i - base;
+
+            int clockwise = base + (offset + 1) % size;
+            int counterClockwise = base + (offset + size - 1) % size;
+            int mirror = indexOf(shapes, count, mirror(shapes[i]));
+
+            orientations[i] = new Orientation(this, firstIndex + i, i, mirrored[i], shapes[i],
+                    clockwise, counterClockwise, mirror);
+        }
+    }
+
+    /** Number of distinct orientations, optionally counting mirror images. */
+    public int getOrientationCount(boolean includeMirrors) {
+        return includeMirrors ? orientations.length : rotationCount;
+    }
+
+    /** Returns the shared orientation at the given position in this type's table. */
+    public Orientation getOrientation(int localIndex) {
+        return orientations[localIndex];
+    }
+
+    /** Total number of orientations over all types, mirror images included. */
+    public static int getOrientationTotal() {
+        return ALL_ORIENTATIONS.length;
+    }
+
+    public static Orientation getOrientationByIndex(int index) {
+        return ALL_ORIENTATIONS[index];
+    }
+
+    private static int indexOf(int[][][] shapes, int count, int[][] shape) {
+        for (int i = 0; i < count; i++) {
+            if (Arrays.deepEquals(shapes[i], shape)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int[][] mirror(int[][] shape) {
+        int rows = shape.length;
+        int cols = shape[0].length;
+        int[][] mirrored = new int[rows][cols];
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                mirrored[i][cols - 1 - j] = shape[i][j];
+            }
+        }
+        return mirrored;
+    }
+
+    private static int[][] rotateClockwise(int[][] shape) {
+        int rows = shape.length;
+        int cols = shape[0].length;
+        int[][] rotated = new int[cols][rows];
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                rotated[j][rows - 1 - i] = shape[i][j];
+            }
+        }
+        return rotated;
+    }
+
     /**
-     * Returns a deep copy of the shape matrix to ensure that
-     * rotation on one Piece object does not affect others.
+     * Returns a deep copy of the shape matrix for callers that want to modify it.
+     * Pieces use the shared orientation table instead.
      */
     public int[][] getInitialShape() {
         int rows = initialShape.length;
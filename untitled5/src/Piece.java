@@ -1,41 +1,44 @@
 import javafx.scene.paint.Color;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class Piece {
-    private static final AtomicInteger nextId = new AtomicInteger(1);
-    private final int id;
-
-    private int[][] shapeMatrix;
     private final PentominoType type;
-    private final Color color;
+    private final byte color; // PiecePalette index
+    private int orientation = 0; // Local index into the type's shared orientation table
 
-    public Piece(PentominoType type, Color color) {
-        this.id = nextId.getAndIncrement();
+    /** A piece of the given type drawn in the PiecePalette color with the given index. */
+    public Piece(PentominoType type, int colorIndex) {
+        if (colorIndex < 0 || colorIndex >= PiecePalette.SIZE) {
+            throw new IllegalArgumentException("No palette color " + colorIndex);
+        }
         this.type = type;
-        this.color = color;
-        this.shapeMatrix = type.getInitialShape();
+        this.color = (byte) colorIndex;
     }
 
     public void rotateClockwise() {
-        int rows = shapeMatrix.length;
-        int cols = shapeMatrix[0].length;
-        int[][] newMatrix = new int[cols][rows];
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                newMatrix[j][rows - 1 - i] = shapeMatrix[i][j];
-            }
-        }
-        this.shapeMatrix = newMatrix;
+        orientation = type.getOrientation(orientation).getClockwise();
     }
 
     public void rotateCounterClockwise() {
-        rotateClockwise();
-        rotateClockwise();
-        rotateClockwise();
+        orientation = type.getOrientation(orientation).getCounterClockwise();
+    }
+
+    /** Flips the piece to its mirror image (only changes chiral shapes). */
+    public void mirror() {
+        orientation = type.getOrientation(orientation).getMirror();
+    }
+
+    /** Turns the piece to the given local index of its type's orientation table. */
+    public void setOrientation(int localIndex) {
+        if (localIndex < 0 || localIndex >= type.getOrientationCount(true)) {
+            throw new IllegalArgumentException("No orientation " + localIndex + " for " + type);
+        }
+        orientation = localIndex;
     }
 
-    public int getId() { return id; }
-    public int[][] getShapeMatrix() { return shapeMatrix; }
-    public Color getColor() { return color; }
+    public PentominoType getType() { return type; }
+    public Orientation getOrientation() { return type.getOrientation(orientation); }
+    public int[][] getShapeMatrix() { return getOrientation().getMatrix(); }
+    public long[] getRowMasks() { return getOrientation().getRowMasks(); }
+    public Color getColor() { return PiecePalette.get(color); }
+    public int getColorIndex() { return color & 0xFF; }
 }
\ No newline at end of file
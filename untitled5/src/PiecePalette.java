@@ -0,0 +1,54 @@
+import javafx.scene.paint.Color;
+import java.util.random.RandomGenerator;
+
+/**
+ * The fixed colors pieces are drawn in, addressed by a one-byte index. Pieces
+ * and board slots store the index, so no Color is made per piece and looking
+ * a cell's color up is an array read. Entry 0 is the neutral gray of pieces
+ * without a color of their own; the other entries step round the hue circle by
+ * the golden angle, so nearby indices never look alike.
+ */
+public final class PiecePalette {
+    public static final int SIZE = 256;
+    public static final int NEUTRAL = 0;
+
+    private static final Color[] COLORS = new Color[SIZE];
+
+    static {
+        COLORS[NEUTRAL] = Color.GRAY;
+        for (int i = 1; i < SIZE; i++) {
+            double hue = (i * 137.508) % 360;
+            COLORS[i] = Color.hsb(hue, 0.45 + 0.2 * (i % 3), 0.95 - 0.15 * (i / 3 % 2));
+        }
+    }
+
+    private PiecePalette() {
+    }
+
+    /** The color of the given index, the byte may be passed as it is. */
+    public static Color get(int index) {
+        return COLORS[index & 0xFF];
+    }
+
+    /** A random index other than NEUTRAL. */
+    public static int random(RandomGenerator random) {
+        return 1 + random.nextInt(SIZE - 1);
+    }
+
+    /** The index whose color is closest to the given RGB, for reading colors stored before the palette. */
+    public static int nearest(int red, int green, int blue) {
+        int best = NEUTRAL;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < SIZE; i++) {
+            double dr = COLORS[i].getRed() * 255 - red;
+            double dg = COLORS[i].getGreen() * 255 - green;
+            double db = COLORS[i].getBlue() * 255 - blue;
+            double distance = dr * dr + dg * dg + db * db;
+            if (distance < bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+}
\ No newline at end of file
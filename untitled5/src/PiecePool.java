@@ -1,67 +1,105 @@
-import javafx.scene.paint.Color;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
 
+/**
+ * The pieces currently on offer. The pool is changed from the clock thread
+ * (refreshes) and from the thread placing pieces, so every change publishes a
+ * new immutable snapshot that readers such as the UI can use without locking.
+ */
 public class PiecePool {
-    private List<Piece> availablePieces;
+    private volatile List<Piece> availablePieces = List.of();
     private Random random;
-    private Timer dynamicPieceTimer;
+    private PieceSource pieceSource;
+    private GameClock.Task dynamicPieceTimer;
+    private int timerGeneration; // Lets a refresh that was already running when reset() happened see it
 
     public PiecePool() {
-        this.availablePieces = new ArrayList<>();
+        this(new RandomPieceSource());
+    }
+
+    public PiecePool(PieceSource pieceSource) {
         this.random = new Random();
+        this.pieceSource = pieceSource;
     }
 
-    public void reset() {
-        availablePieces.clear();
+    public synchronized void reset() {
+        availablePieces = List.of();
+        timerGeneration++;
         if (dynamicPieceTimer != null) {
             dynamicPieceTimer.cancel();
             dynamicPieceTimer = null;
         }
     }
 
-    public void startPieceTimer(GameView view) {
-        if (dynamicPieceTimer != null) {
-            dynamicPieceTimer.cancel();
+    /**
+     * Replaces the pool with three fresh pieces every 10 seconds of the given clock.
+     * The refresh and onRefresh run while holding gameLock, so they never interleave
+     * with a placement made under the same lock.
+     */
+    public void startPieceTimer(GameClock clock, Object gameLock, Runnable onRefresh) {
+        synchronized (this) {
+            if (dynamicPieceTimer != null) {
+                dynamicPieceTimer.cancel();
+            }
+            int generation = ++timerGeneration;
+
+            dynamicPieceTimer = clock.scheduleAtFixedRate(() -> {
+                synchronized (gameLock) {
+                    if (refresh(generation)) {
+                        onRefresh.run();
+                    }
+                }
+            }, 10000, 10000);
         }
+    }
 
-        dynamicPieceTimer = new Timer();
-        dynamicPieceTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                availablePieces.clear();
-                generateRandomPiece();
-                generateRandomPiece();
-                generateRandomPiece();
+    private synchronized boolean refresh(int generation) {
+        if (generation != timerGeneration) {
+            return false;
+        }
+        availablePieces = List.of(pieceSource.nextPiece(), pieceSource.nextPiece(), pieceSource.nextPiece());
+        return true;
+    }
 
-                view.updateView();
-            }
-        }, 10000, 10000);
+    /** Replaces the pool with the given pieces, e.g. when a saved game is resumed. */
+    public synchronized void setPieces(List<Piece> pieces) {
+        availablePieces = List.copyOf(pieces);
+    }
+
+    public synchronized void generateRandomPiece() {
+        add(pieceSource.nextPiece());
     }
 
-    public void generateRandomPiece() {
-        // This ensures a random selection from all 12 shapes defined above
-        PentominoType[] types = PentominoType.values();
-        PentominoType type = types[random.nextInt(types.length)];
+    /** Immutable snapshot of the pieces on offer, safe to read from any thread. */
+    public List<Piece> getAvailablePieces() { return availablePieces; }
 
-        Color color = Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+    public synchronized void removePiece(Piece piece) {
+        List<Piece> pieces = new ArrayList<>(availablePieces);
+        if (pieces.remove(piece)) {
+            availablePieces = List.copyOf(pieces);
+        }
+    }
 
-        Piece newPiece = new Piece(type, color);
-        availablePieces.add(newPiece);
+    /** Puts a piece back at the given position (or the end, if the pool got shorter), for undo. */
+    public synchronized void insertPiece(int index, Piece piece) {
+        List<Piece> pieces = new ArrayList<>(availablePieces);
+        pieces.add(Math.min(index, pieces.size()), piece);
+        availablePieces = List.copyOf(pieces);
     }
 
-    public List<Piece> getAvailablePieces() { return availablePieces; }
+    /** Adds a piece that was dealt before, for redo. */
+    public synchronized void addPiece(Piece piece) {
+        add(piece);
+    }
 
-    public void removePiece(Piece piece) {
-        availablePieces.remove(piece);
+    public synchronized void generateSpecificPiece(PentominoType type) {
+        add(new Piece(type, PiecePalette.random(random)));
     }
 
-    public void generateSpecificPiece(PentominoType type) {
-        Color color = Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256));
-        Piece newPiece = new Piece(type, color);
-        availablePieces.add(newPiece);
+    private void add(Piece piece) {
+        List<Piece> pieces = new ArrayList<>(availablePieces);
+        pieces.add(piece);
+        availablePieces = List.copyOf(pieces);
     }
 }
\ No newline at end of file
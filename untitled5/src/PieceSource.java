@@ -0,0 +1,4 @@
+/** Supplies the pieces a PiecePool deals out. */
+public interface PieceSource {
+    Piece nextPiece();
+}
\ No newline at end of file
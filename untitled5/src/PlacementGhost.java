@@ -0,0 +1,70 @@
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * Snap-to-grid preview of where the dragged piece would land, drawn over the
+ * board by any BoardRenderer. Its five squares are created once and only moved
+ * and recoloured afterwards, so updating it on every mouse move allocates nothing.
+ */
+public class PlacementGhost {
+    private static final Color LEGAL_FILL = Color.rgb(50, 205, 50, 0.45);
+    private static final Color ILLEGAL_FILL = Color.rgb(220, 20, 60, 0.45);
+
+    private final Group layer = new Group();
+    private final Rectangle[] squares = new Rectangle[5];
+    private final int cellSize;
+
+    // What is shown right now, so unchanged moves within a cell skip the scene graph
+    private int shownOrientation = -1;
+    private int shownRow;
+    private int shownCol;
+    private boolean shownLegal;
+
+    /** Ghost for a board of rows x cols cells; squares outside the board are clipped. */
+    public PlacementGhost(int rows, int cols, int cellSize) {
+        this.cellSize = cellSize;
+
+        for (int k = 0; k < squares.length; k++) {
+            Rectangle square = new Rectangle(cellSize, cellSize);
+            square.setStroke(Color.BLACK);
+            squares[k] = square;
+        }
+        layer.getChildren().addAll(squares);
+        layer.setClip(new Rectangle(cols * cellSize, rows * cellSize));
+        layer.setMouseTransparent(true);
+        layer.setVisible(false);
+    }
+
+    /** The node to put over the board node, with the same origin. */
+    public Node getNode() {
+        return layer;
+    }
+
+    /** Shows the orientation anchored at (row, col), green if legal there and red otherwise. */
+    public void show(Orientation orientation, int row, int col, boolean legal) {
+        if (orientation.getIndex() == shownOrientation && row == shownRow && col == shownCol
+                && legal == shownLegal && layer.isVisible()) {
+            return;
+        }
+        shownOrientation = orientation.getIndex();
+        shownRow = row;
+        shownCol = col;
+        shownLegal = legal;
+
+        Color fill = legal ? LEGAL_FILL : ILLEGAL_FILL;
+        for (int k = 0; k < squares.length; k++) {
+            Rectangle square = squares[k];
+            square.setX((col + orientation.getCellCol(k)) * cellSize);
+            square.setY((row + orientation.getCellRow(k)) * cellSize);
+            square.setFill(fill);
+        }
+        layer.setVisible(true);
+        layer.toFront();
+    }
+
+    public void hide() {
+        layer.setVisible(false);
+    }
+}
\ No newline at end of file
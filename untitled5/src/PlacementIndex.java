@@ -0,0 +1,322 @@
+import java.util.Arrays;
+
+/**
+ * Keeps, for every orientation of every PentominoType, the set of anchors
+ * (top-left corners of the bounding box) where it can currently be placed,
+ * together with the number of such anchors and the number of empty cells.
+ *
+ * The sets are stored transposed: one 64-bit word per anchor with a bit per
+ * orientation index. Filling a cell just clears, at each of the few anchor
+ * offsets a covering placement can have, the bits of the orientations with a
+ * cell at that offset. Emptying a cell again (undo) sets back those bits whose
+ * placement stays inside the board and covers only empty cells.
+ */
+public final class PlacementIndex {
+    // Anchors get PAD spare rows above and PAD spare columns left of the board, so the
+    // anchors of placements that would stick out of it (at most PAD cells up or left)
+    // still have a word, one that is always 0. That keeps bounds checks out of cellFilled.
+    private static final int PAD = 4;
+    private static final int SPAN = PAD + 1; // Cell offsets inside a bounding box are 0..PAD
+
+    private final int rows;
+    private final int cols;
+    private final int stride; // Words per padded row
+
+    // fits[(row + PAD) * stride + col + PAD] has bit o set when orientation o fits at (row, col)
+    private final long[] fits;
+    private final long[] filled; // Bit row * cols + col set when the cell is filled
+    private final int[] anchorCounts;
+    private final int[] typeCounts; // Rotations only, mirror images are not counted
+    private int emptyCells;
+
+    // For every cell offset (dr, dc) that some orientation covers: the orientations that
+    // cover it, and how far before a filled cell's word the anchor of such a placement is
+    private final long[] offsetOrientations;
+    private final int[] offsetDelta;
+    private final int[] offsetRow;
+    private final int[] offsetCol;
+    private final int[] maxAnchorRow;
+    private final int[] maxAnchorCol;
+    private final int[] countedType; // Type ordinal, or -1 for mirror images
+    private final long[] fitsInRow;    // Orientations whose bounding box fits below the row
+    private final long[] fitsInColumn; // Orientations whose bounding box fits right of the column
+    private final int[][] cellDeltas;  // Per orientation, its cells as row * cols + col from the anchor
+
+    // Undo log of cellFilled() once enableRollback() was called: the anchor and the bits
+    // it lost, or -1 - bit for the filled cell itself
+    private boolean logging;
+    private int[] logAnchors;
+    private long[] logBits;
+    private int logSize;
+
+    public PlacementIndex(int rows, int cols) {
+        int total = PentominoType.getOrientationTotal();
+        if (total > Long.SIZE) {
+            throw new IllegalStateException(total + " orientations do not fit in one word");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = cols + PAD;
+
+        this.fits = new long[(rows + PAD) * stride];
+        this.filled = new long[(rows * cols + 63) >>> 6];
+        this.anchorCounts = new int[total];
+        this.typeCounts = new int[PentominoType.values().length];
+
+        this.maxAnchorRow = new int[total];
+        this.maxAnchorCol = new int[total];
+        this.countedType = new int[total];
+        this.cellDeltas = new int[total][];
+        long[] coveredBy = new long[SPAN * SPAN];
+        for (int o = 0; o < total; o++) {
+            Orientation orientation = PentominoType.getOrientationByIndex(o);
+            for (int k = 0; k < orientation.getCellCount(); k++) {
+                coveredBy[orientation.getCellRow(k) * SPAN + orientation.getCellCol(k)] |= 1L << o;
+            }
+            maxAnchorRow[o] = rows - orientation.getRows();
+            maxAnchorCol[o] = cols - orientation.getCols();
+            countedType[o] = orientation.isMirrored() ? -1 : orientation.getType().ordinal();
+            cellDeltas[o] = new int[orientation.getCellCount()];
+            for (int k = 0; k < cellDeltas[o].length; k++) {
+                cellDeltas[o][k] = orientation.getCellRow(k) * cols + orientation.getCellCol(k);
+            }
+        }
+
+        this.fitsInRow = new long[rows];
+        this.fitsInColumn = new long[cols];
+        for (int o = 0; o < total; o++) {
+            for (int r = 0; r <= maxAnchorRow[o]; r++) {
+                fitsInRow[r] |= 1L << o;
+            }
+            for (int c = 0; c <= maxAnchorCol[o]; c++) {
+                fitsInColumn[c] |= 1L << o;
+            }
+        }
+
+        int offsets = 0;
+        for (long orientations : coveredBy) {
+            if (orientations != 0) {
+                offsets++;
+            }
+        }
+        this.offsetOrientations = new long[offsets];
+        this.offsetDelta = new int[offsets];
+        this.offsetRow = new int[offsets];
+        this.offsetCol = new int[offsets];
+        for (int d = 0, i = 0; d < coveredBy.length; d++) {
+            if (coveredBy[d] != 0) {
+                offsetOrientations[i] = coveredBy[d];
+                offsetDelta[i] = (d / SPAN) * stride + d % SPAN;
+                offsetRow[i] = d / SPAN;
+                offsetCol[i] = d % SPAN;
+                i++;
+            }
+        }
+        reset();
+    }
+
+    /** Marks every cell empty and every in-bounds anchor legal again. */
+    public void reset() {
+        Arrays.fill(fits, 0L);
+        Arrays.fill(filled, 0L);
+        Arrays.fill(typeCounts, 0);
+
+        for (int o = 0; o < anchorCounts.length; o++) {
+            anchorCounts[o] = Math.max(maxAnchorRow[o] + 1, 0) * Math.max(maxAnchorCol[o] + 1, 0);
+            if (countedType[o] >= 0) {
+                typeCounts[countedType[o]] += anchorCounts[o];
+            }
+        }
+        // An orientation fits at (r, c) when it fits both at row r and at column c
+        for (int r = 0; r < rows; r++) {
+            int base = (r + PAD) * stride + PAD;
+            for (int c = 0; c < cols; c++) {
+                fits[base + c] = fitsInRow[r] & fitsInColumn[c];
+            }
+        }
+        emptyCells = rows * cols;
+        logSize = 0;
+    }
+
+    /** Makes this index equal to other, which must be for the same board size. */
+    public void copyFrom(PlacementIndex other) {
+        if (other.rows != rows || other.cols != cols) {
+            throw new IllegalArgumentException("Board size mismatch");
+        }
+        System.arraycopy(other.fits, 0, fits, 0, fits.length);
+        System.arraycopy(other.filled, 0, filled, 0, filled.length);
+        System.arraycopy(other.anchorCounts, 0, anchorCounts, 0, anchorCounts.length);
+        System.arraycopy(other.typeCounts, 0, typeCounts, 0, typeCounts.length);
+        emptyCells = other.emptyCells;
+        logSize = 0;
+    }
+
+    /**
+     * Makes cellFilled() log what it changes, so rollback() can take fills back in time
+     * proportional to the placements they removed instead of checking every placement
+     * over the cell again like cellEmptied(). For copies of a board that a search tries
+     * moves on, the log costs the board's own index a few stores per fill for nothing.
+     */
+    public void enableRollback() {
+        if (!logging) {
+            logging = true;
+            logAnchors = new int[256];
+            logBits = new long[256];
+        }
+    }
+
+    /** The point to roll back to, see enableRollback(). */
+    public int checkpoint() {
+        if (!logging) {
+            throw new IllegalStateException("Rollback is not enabled");
+        }
+        return logSize;
+    }
+
+    /** Takes back every cellFilled() since the checkpoint, newest first. */
+    public void rollback(int checkpoint) {
+        while (logSize > checkpoint) {
+            logSize--;
+            int anchor = logAnchors[logSize];
+            if (anchor < 0) {
+                int bit = -1 - anchor;
+                filled[bit >>> 6] &= ~(1L << bit);
+                emptyCells++;
+                continue;
+            }
+            long restored = logBits[logSize];
+            fits[anchor] |= restored;
+            do {
+                int o = Long.numberOfTrailingZeros(restored);
+                anchorCounts[o]++;
+                if (countedType[o] >= 0) {
+                    typeCounts[countedType[o]]++;
+                }
+                restored &= restored - 1;
+            } while (restored != 0);
+        }
+    }
+
+    private void log(int anchor, long bits) {
+        if (logSize == logAnchors.length) {
+            logAnchors = Arrays.copyOf(logAnchors, logSize * 2);
+            logBits = Arrays.copyOf(logBits, logSize * 2);
+        }
+        logAnchors[logSize] = anchor;
+        logBits[logSize] = bits;
+        logSize++;
+    }
+
+    /** Removes every placement that covers the given cell. Call once per newly filled cell. */
+    public void cellFilled(int row, int col) {
+        int cell = (row + PAD) * stride + col + PAD;
+
+        for (int i = 0; i < offsetDelta.length; i++) {
+            int anchor = cell - offsetDelta[i];
+            long removed = fits[anchor] & offsetOrientations[i];
+            if (removed == 0) {
+                continue;
+            }
+            fits[anchor] &= ~removed;
+            if (logging) {
+                log(anchor, removed);
+            }
+            do {
+                int o = Long.numberOfTrailingZeros(removed);
+                anchorCounts[o]--;
+                if (countedType[o] >= 0) {
+                    typeCounts[countedType[o]]--;
+                }
+                removed &= removed - 1;
+            } while (removed != 0);
+        }
+        int bit = row * cols + col;
+        filled[bit >>> 6] |= 1L << bit;
+        emptyCells--;
+        if (logging) {
+            log(-1 - bit, 0L);
+        }
+    }
+
+    /** Adds back every placement over the given cell that is now free. Call once per emptied cell. */
+    public void cellEmptied(int row, int col) {
+        int bit = row * cols + col;
+        filled[bit >>> 6] &= ~(1L << bit);
+        emptyCells++;
+
+        for (int i = 0; i < offsetRow.length; i++) {
+            int anchorRow = row - offsetRow[i];
+            int anchorCol = col - offsetCol[i];
+            if (anchorRow < 0 || anchorCol < 0) {
+                continue;
+            }
+            int anchor = (anchorRow + PAD) * stride + anchorCol + PAD;
+            long candidates = offsetOrientations[i] & fitsInRow[anchorRow] & fitsInColumn[anchorCol]
+                    & ~fits[anchor];
+            while (candidates != 0) {
+                int o = Long.numberOfTrailingZeros(candidates);
+                if (isFree(o, anchorRow * cols + anchorCol)) {
+                    fits[anchor] |= 1L << o;
+                    anchorCounts[o]++;
+                    if (countedType[o] >= 0) {
+                        typeCounts[countedType[o]]++;
+                    }
+                }
+                candidates &= candidates - 1;
+            }
+        }
+    }
+
+    private boolean isFree(int orientationIndex, int anchorBit) {
+        for (int delta : cellDeltas[orientationIndex]) {
+            int bit = anchorBit + delta;
+            if ((filled[bit >>> 6] & (1L << bit)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isLegal(int orientationIndex, int row, int col) {
+        if (row < 0 || col < 0 || row >= rows || col >= cols) {
+            return false;
+        }
+        return (fits[(row + PAD) * stride + col + PAD] & (1L << orientationIndex)) != 0;
+    }
+
+    /**
+     * Returns the first legal anchor (row * cols + col) of the orientation at or
+     * after the given anchor, or -1 if there is none. Works like BitSet.nextSetBit.
+     */
+    public int nextLegalAnchor(int orientationIndex, int fromAnchor) {
+        if (fromAnchor >= rows * cols) {
+            return -1;
+        }
+        long bit = 1L << orientationIndex;
+        int maxCol = maxAnchorCol[orientationIndex];
+
+        for (int r = fromAnchor / cols, c = fromAnchor % cols; r <= maxAnchorRow[orientationIndex]; r++, c = 0) {
+            int base = (r + PAD) * stride + PAD;
+            for (; c <= maxCol; c++) {
+                if ((fits[base + c] & bit) != 0) {
+                    return r * cols + c;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Number of anchors where the orientation with the given index fits. */
+    public int getAnchorCount(int orientationIndex) {
+        return anchorCounts[orientationIndex];
+    }
+
+    /** Number of placements of the type over all its rotations (mirror images excluded). */
+    public int getTypeFitCount(PentominoType type) {
+        return typeCounts[type.ordinal()];
+    }
+
+    public int getEmptyCells() {
+        return emptyCells;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A starting board of pieces already in place plus the pieces that finish it,
+ * each type at most once and dealt in a fixed order. The pieces always fit: the
+ * board was a complete tiling before they were taken out (see PuzzleGenerator).
+ * Graded by the size of the search tree that finds every way to finish it.
+ *
+ * Library file: magic, version byte, rows, cols (varints), then one record per
+ * puzzle, fields as unsigned varints unless noted:
+ *   fixed piece count, then per piece its orientation index and anchor (row * cols + col)
+ *   piece count, then per piece its type ordinal
+ *   solutions, search nodes (zigzag varlongs)
+ * A 10x10 puzzle takes about 40 bytes.
+ */
+public final class Puzzle {
+    public static final int MAGIC = 0x505A4C42; // "PZLB"
+    public static final int VERSION = 1;
+
+    private final int rows;
+    private final int cols;
+    private final int[] fixedOrientations;
+    private final int[] fixedAnchors;
+    private final PentominoType[] pieces;
+    private final long solutions;
+    private final long nodes;
+
+    /** Takes the arrays as they are, they must not be changed afterwards. */
+    public Puzzle(int rows, int cols, int[] fixedOrientations, int[] fixedAnchors,
+                  PentominoType[] pieces, long solutions, long nodes) {
+        this.rows = rows;
+        this.cols = cols;
+        this.fixedOrientations = fixedOrientations;
+        this.fixedAnchors = fixedAnchors;
+        this.pieces = pieces;
+        this.solutions = solutions;
+        this.nodes = nodes;
+    }
+
+    /** Places the fixed pieces on an empty board of the puzzle's size. */
+    public void fill(GameBoard board) {
+        if (board.getRows() != rows || board.getCols() != cols) {
+            throw new IllegalArgumentException("Puzzle is for " + rows + "x" + cols + " boards");
+        }
+        for (int i = 0; i < fixedOrientations.length; i++) {
+            Orientation orientation = PentominoType.getOrientationByIndex(fixedOrientations[i]);
+            Piece piece = new Piece(orientation.getType(), PiecePalette.NEUTRAL);
+            piece.setOrientation(orientation.getLocalIndex());
+            board.place(piece, fixedAnchors[i] / cols, fixedAnchors[i] % cols);
+        }
+    }
+
+    /**
+     * Deals the puzzle's pieces in order and then starts over, so pieces lost to a
+     * pool refresh come round again. Each call returns a source of its own.
+     */
+    public PieceSource newPieceSource() {
+        int[] next = {0};
+        return () -> {
+            PentominoType type = pieces[next[0]++ % pieces.length];
+            return new Piece(type, 1 + type.ordinal()); // Neighbouring palette colors differ most
+        };
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int getFixedCount() { return fixedOrientations.length; }
+    public int getPieceCount() { return pieces.length; }
+    public PentominoType getPiece(int i) { return pieces[i]; }
+
+    /** Number of ways to finish the board with the puzzle's pieces. */
+    public long getSolutions() { return solutions; }
+
+    /** Size of the search tree that found all of them. */
+    public long getNodes() { return nodes; }
+
+    /** log2 of the search nodes per solution: 0 is trivial, every step up doubles the work. */
+    public int getDifficulty() {
+        return 63 - Long.numberOfLeadingZeros(Math.max(nodes / Math.max(solutions, 1), 1));
+    }
+
+    // --- Library file ---
+
+    /** Longest encoding of one puzzle of the given size. */
+    public static int maxRecordBytes(int rows, int cols) {
+        return 5 + rows * cols / 5 * 10 + 5 + PentominoType.values().length * 5 + 2 * 10;
+    }
+
+    public static void writeHeader(ByteBuffer buffer, int rows, int cols) {
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        MoveLog.putVarint(buffer, rows);
+        MoveLog.putVarint(buffer, cols);
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        MoveLog.putVarint(buffer, fixedOrientations.length);
+        for (int i = 0; i < fixedOrientations.length; i++) {
+            MoveLog.putVarint(buffer, fixedOrientations[i]);
+            MoveLog.putVarint(buffer, fixedAnchors[i]);
+        }
+        MoveLog.putVarint(buffer, pieces.length);
+        for (PentominoType type : pieces) {
+            MoveLog.putVarint(buffer, type.ordinal());
+        }
+        MoveLog.putVarlong(buffer, solutions);
+        MoveLog.putVarlong(buffer, nodes);
+    }
+
+    private static Puzzle readFrom(ByteBuffer buffer, int rows, int cols) {
+        int fixed = MoveLog.getVarint(buffer);
+        int[] orientations = new int[fixed];
+        int[] anchors = new int[fixed];
+        for (int i = 0; i < fixed; i++) {
+            orientations[i] = MoveLog.getVarint(buffer);
+            anchors[i] = MoveLog.getVarint(buffer);
+        }
+        PentominoType[] pieces = new PentominoType[MoveLog.getVarint(buffer)];
+        for (int i = 0; i < pieces.length; i++) {
+            pieces[i] = PentominoType.values()[MoveLog.getVarint(buffer)];
+        }
+        long solutions = MoveLog.getVarlong(buffer);
+        long nodes = MoveLog.getVarlong(buffer);
+        return new Puzzle(rows, cols, orientations, anchors, pieces, solutions, nodes);
+    }
+
+    /** Reads every puzzle of a library file written by PuzzleGenerator. */
+    public static List<Puzzle> readLibrary(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 5 || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a puzzle library");
+            }
+            int version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported puzzle library version " + version + " in " + file);
+            }
+            int rows = MoveLog.getVarint(buffer);
+            int cols = MoveLog.getVarint(buffer);
+
+            List<Puzzle> puzzles = new ArrayList<>();
+            while (buffer.hasRemaining()) {
+                puzzles.add(readFrom(buffer, rows, cols));
+            }
+            return puzzles;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,306 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Makes Puzzles that are sure to be solvable: the board is tiled completely
+ * with the rotations a player can make, by a TilingSolver trying placements in
+ * random order, then pieces of different types are taken out of the tiling and
+ * become the pieces to deal. The gap is graded by enumerating every way those
+ * pieces fill it on an exact-cover matrix with a column per cell and per piece.
+ *
+ * Puzzle i of a run only depends on the seed and i, so a library comes out the
+ * same with any number of threads and on any machine: a search that runs long is
+ * cut off after a fixed number of nodes, not a time, and that attempt starts over.
+ * Batches are generated in parallel and written in order as they complete, so a
+ * library never has to fit in memory.
+ *
+ * Usage: java PuzzleGenerator file [count] [seed] [pieces] [rows] [cols] [threads]
+ */
+public class PuzzleGenerator {
+    public static final int DEFAULT_PIECES = 6;
+
+    private static final int BATCH_SIZE = 64;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Searches that visit more nodes than this are given up and the attempt is made again
+    private static final long TILING_NODES_PER_CELL = 500;
+    private static final long GRADING_NODE_LIMIT = 2_000_000;
+    // Boards that do not tile with enough different types fail every attempt
+    private static final int MAX_ATTEMPTS = 1000;
+
+    private final int rows;
+    private final int cols;
+    private final int pieceCount;
+    private final ThreadLocal<Worker> workers;
+
+    private long attempts;
+    private long tilingTimeouts;
+    private long gradingTimeouts;
+
+    /** Puzzles for rows x cols boards with the given number of pieces to place, 1 to 12. */
+    public PuzzleGenerator(int rows, int cols, int pieceCount) {
+        if (pieceCount < 1 || pieceCount > PentominoType.values().length || pieceCount * 5 > rows * cols) {
+            throw new IllegalArgumentException("Cannot make puzzles of " + pieceCount + " pieces on "
+                    + rows + "x" + cols + " boards");
+        }
+        if (rows * cols % 5 != 0) {
+            throw new IllegalArgumentException("A " + rows + "x" + cols + " board cannot be tiled with pentominoes");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.pieceCount = pieceCount;
+        this.workers = ThreadLocal.withInitial(Worker::new);
+    }
+
+    // Everything one thread needs to make puzzles, allocated once and reused
+    private final class Worker {
+        final Random random = new Random();
+        final GameBoard board = new GameBoard(rows, cols);
+        final TilingSolver solver = new TilingSolver(rows, cols, false);
+        final DancingLinks dlx;
+        final int[] columnOfCell = new int[rows * cols];
+        final int[] rowColumns = new int[6];
+        final int[] order = new int[rows * cols / 5];
+        long attempts;
+        long tilingTimeouts;
+        long gradingTimeouts;
+
+        Worker() {
+            int maxRows = PentominoType.getOrientationTotal() * rows * cols;
+            dlx = new DancingLinks(rows * cols + PentominoType.values().length, maxRows, maxRows * 6);
+            solver.setRandomOrder(random);
+            solver.setNodeLimit(TILING_NODES_PER_CELL * rows * cols);
+            dlx.setNodeLimit(GRADING_NODE_LIMIT);
+        }
+
+        Puzzle generate(long seed) {
+            random.setSeed(seed);
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                attempts++;
+                board.reset();
+                if (solver.solve(board, 0) != DancingLinks.Status.SOLVED) {
+                    tilingTimeouts++;
+                    continue;
+                }
+                Puzzle puzzle = carve();
+                if (puzzle != null) {
+                    return puzzle;
+                }
+            }
+            throw new IllegalStateException("No puzzle of " + pieceCount + " different pieces found on a "
+                    + rows + "x" + cols + " board in " + MAX_ATTEMPTS + " attempts (seed " + seed + ")");
+        }
+
+        // Takes pieces of different types out of the solver's tiling and grades the gap, null if
+        // the tiling has too few types or the grading ran over its node limit
+        private Puzzle carve() {
+            int placements = solver.getPlacementCount();
+            for (int i = 0; i < placements; i++) {
+                order[i] = i;
+            }
+            for (int i = placements - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = order[i];
+                order[i] = order[j];
+                order[j] = t;
+            }
+
+            // The first placement of each type in shuffled order is a candidate to take out
+            int[] fixedOrientations = new int[placements - pieceCount];
+            int[] fixedAnchors = new int[placements - pieceCount];
+            PentominoType[] pieces = new PentominoType[pieceCount];
+            int taken = 0;
+            int fixed = 0;
+            int typesTaken = 0; // Bit per type ordinal
+            for (int i = 0; i < placements; i++) {
+                int p = order[i];
+                Orientation orientation = solver.getPlacementOrientation(p);
+                int type = orientation.getType().ordinal();
+                if (taken < pieceCount && (typesTaken & (1 << type)) == 0) {
+                    typesTaken |= 1 << type;
+                    pieces[taken++] = orientation.getType();
+                    continue;
+                }
+                if (fixed == fixedOrientations.length) {
+                    return null; // Fewer than pieceCount types in this tiling
+                }
+                fixedOrientations[fixed] = orientation.getIndex();
+                fixedAnchors[fixed] = solver.getPlacementRow(p) * cols + solver.getPlacementCol(p);
+                fixed++;
+            }
+
+            if (!grade(fixedOrientations, fixedAnchors, pieces)) {
+                gradingTimeouts++;
+                return null;
+            }
+            return new Puzzle(rows, cols, fixedOrientations, fixedAnchors, pieces,
+                    dlx.getSolutionsFound(), dlx.getNodesVisited());
+        }
+
+        // Counts every way the pieces fill the cells the fixed pieces leave empty, false over the limit
+        private boolean grade(int[] fixedOrientations, int[] fixedAnchors, PentominoType[] pieces) {
+            // -1 for a fixed piece's cell, otherwise 0 until numbered with its column + 1
+            Arrays.fill(columnOfCell, 0);
+            for (int i = 0; i < fixedOrientations.length; i++) {
+                Orientation orientation = PentominoType.getOrientationByIndex(fixedOrientations[i]);
+                for (int k = 0; k < orientation.getCellCount(); k++) {
+                    columnOfCell[fixedAnchors[i] + orientation.getCellRow(k) * cols + orientation.getCellCol(k)] = -1;
+                }
+            }
+            int cellColumns = 0;
+            for (int cell = 0; cell < columnOfCell.length; cell++) {
+                if (columnOfCell[cell] == 0) {
+                    columnOfCell[cell] = cellColumns++ + 1;
+                }
+            }
+            int columns = cellColumns + pieces.length;
+            dlx.clear(columns, columns);
+
+            for (int p = 0; p < pieces.length; p++) {
+                PentominoType type = pieces[p];
+                for (int i = 0; i < type.getOrientationCount(false); i++) {
+                    Orientation orientation = type.getOrientation(i);
+                    for (int r = 0; r + orientation.getRows() <= rows; r++) {
+                        for (int c = 0; c + orientation.getCols() <= cols; c++) {
+                            int count = 0;
+                            for (int k = 0; k < orientation.getCellCount(); k++) {
+                                int column = columnOfCell[(r + orientation.getCellRow(k)) * cols + c + orientation.getCellCol(k)];
+                                if (column < 0) {
+                                    break;
+                                }
+                                rowColumns[count++] = column - 1;
+                            }
+                            if (count == orientation.getCellCount()) {
+                                rowColumns[count++] = cellColumns + p;
+                                dlx.addRow(rowColumns, count);
+                            }
+                        }
+                    }
+                }
+            }
+            return dlx.search(0, (d, depth) -> true) == DancingLinks.Status.EXHAUSTED;
+        }
+    }
+
+    /** The puzzle for the given seed, made on the calling thread. */
+    public Puzzle generate(long seed) {
+        Worker worker = workers.get();
+        Puzzle puzzle = worker.generate(seed);
+        synchronized (this) {
+            attempts += worker.attempts;
+            tilingTimeouts += worker.tilingTimeouts;
+            gradingTimeouts += worker.gradingTimeouts;
+            worker.attempts = 0;
+            worker.tilingTimeouts = 0;
+            worker.gradingTimeouts = 0;
+        }
+        return puzzle;
+    }
+
+    private Puzzle[] generateBatch(long seed, int count) {
+        Puzzle[] batch = new Puzzle[count];
+        for (int i = 0; i < count; i++) {
+            batch[i] = generate(seed + i);
+        }
+        return batch;
+    }
+
+    /**
+     * Writes a library of count puzzles, puzzle i made from seed + i, generating batches
+     * on the given number of threads. Returns the number of puzzles per difficulty.
+     */
+    public long[] writeLibrary(Path file, int count, long seed, int threads) throws IOException {
+        long[] difficulties = new long[64];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        int maxRecord = Puzzle.maxRecordBytes(rows, cols);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "puzzle-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Puzzle.writeHeader(buffer, rows, cols);
+
+            // A few batches per thread in flight keeps every thread busy while the oldest is written
+            ArrayDeque<Future<Puzzle[]>> pending = new ArrayDeque<>();
+            int submitted = 0;
+            while (submitted < count || !pending.isEmpty()) {
+                while (submitted < count && pending.size() < threads * 4) {
+                    long batchSeed = seed + submitted;
+                    int size = Math.min(BATCH_SIZE, count - submitted);
+                    pending.add(executor.submit(() -> generateBatch(batchSeed, size)));
+                    submitted += size;
+                }
+                for (Puzzle puzzle : pending.remove().get()) {
+                    if (buffer.remaining() < maxRecord) {
+                        flush(channel, buffer);
+                    }
+                    puzzle.writeTo(buffer);
+                    difficulties[puzzle.getDifficulty()]++;
+                }
+            }
+            flush(channel, buffer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing " + file, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Puzzle generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return difficulties;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public synchronized long getAttempts() { return attempts; }
+    public synchronized long getTilingTimeouts() { return tilingTimeouts; }
+    public synchronized long getGradingTimeouts() { return gradingTimeouts; }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java PuzzleGenerator file [count] [seed] [pieces] [rows] [cols] [threads]");
+            return;
+        }
+        Path file = Path.of(args[0]);
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        int pieces = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_PIECES;
+        int rows = args.length > 4 ? Integer.parseInt(args[4]) : GameBoard.DEFAULT_ROWS;
+        int cols = args.length > 5 ? Integer.parseInt(args[5]) : GameBoard.DEFAULT_COLS;
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+
+        PuzzleGenerator generator = new PuzzleGenerator(rows, cols, pieces);
+        long start = System.nanoTime();
+        long[] difficulties = generator.writeLibrary(file, count, seed, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d puzzles in %.2fs (%.0f puzzles/sec, %d threads), %d bytes%n",
+                count, seconds, count / seconds, threads, file.toFile().length());
+        System.out.printf("%d attempts, %d tilings and %d gradings over budget%n", generator.getAttempts(),
+                generator.getTilingTimeouts(), generator.getGradingTimeouts());
+        System.out.println("Difficulty (log2 search nodes per solution):");
+        for (int d = 0; d < difficulties.length; d++) {
+            if (difficulties[d] > 0) {
+                System.out.printf("  %2d %d%n", d, difficulties[d]);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+import java.util.Random;
+
+/** Uniformly random types with random colors, the game's original dealing rule. */
+public class RandomPieceSource implements PieceSource {
+    private final Random random;
+
+    public RandomPieceSource() {
+        this(new Random());
+    }
+
+    public RandomPieceSource(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public Piece nextPiece() {
+        // This ensures a random selection from all 12 shapes
+        PentominoType[] types = PentominoType.values();
+        PentominoType type = types[random.nextInt(types.length)];
+
+        return new Piece(type, PiecePalette.random(random));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,505 @@
+import java.util.Arrays;
+
+/**
+ * Keeps the empty cells of a board split into their connected regions (4-neighbour
+ * connectivity) and counts the regions that can no longer be filled: those whose
+ * size is not a multiple of 5, and 5-cell pockets no piece orientation fits.
+ * One such region means the board can never be completed.
+ *
+ * Filling a piece's cells can split its region. The empty neighbours of the piece
+ * are first joined through the small window around it, which settles the usual
+ * case of no split at once. Otherwise one flood fill per group of neighbours runs
+ * in lockstep until all but one have finished, so a split costs about the size of
+ * the parts cut off, not of the whole region. Emptying cells (undo) merges the
+ * neighbouring regions by relabelling all but the largest.
+ */
+public final class RegionTracker {
+    private static final int FILLED = -1;
+    private static final int MAX_SEEDS = 16; // Empty neighbours of one pentomino, at most 12
+    private static final int WINDOW_MARGIN = 1;
+
+    private final int rows;
+    private final int cols;
+    private final int[] regionOf; // Region id of each empty cell (row * cols + col), FILLED otherwise
+    private final long[] pocketShapes; // Masks of the orientations that can fill a 5-cell pocket
+
+    private int[] sizes = new int[16];
+    private boolean[] dead = new boolean[16];
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int nextId;
+    private int regionCount;
+    private int deadCount;
+
+    // Flood fill scratch: visit marks stamped per use, and one queue per seed group
+    private final int[] mark;
+    private int stamp;
+    private final int[][] queues = new int[MAX_SEEDS][];
+    private final int[] queueHead = new int[MAX_SEEDS];
+    private final int[] queueTail = new int[MAX_SEEDS];
+    private final int[] group = new int[MAX_SEEDS]; // Union-find over seed groups
+    private boolean groupsChanged; // A fill finished or two fills met since the last count
+    private final int[] seeds = new int[MAX_SEEDS];
+    private final int[] windowParent;
+    private final int[] pocket = new int[5];
+
+    /** Tracks a rows x cols board, counting pockets the given orientations cannot fill as dead. */
+    public RegionTracker(int rows, int cols, boolean includeMirrors) {
+        this.rows = rows;
+        this.cols = cols;
+        this.regionOf = new int[rows * cols];
+        this.mark = new int[rows * cols];
+        this.windowParent = new int[(5 + 2 * WINDOW_MARGIN) * (5 + 2 * WINDOW_MARGIN)];
+        for (int i = 0; i < MAX_SEEDS; i++) {
+            queues[i] = new int[64];
+        }
+
+        int count = 0;
+        long[] shapes = new long[PentominoType.getOrientationTotal()];
+        for (PentominoType type : PentominoType.values()) {
+            for (int i = 0; i < type.getOrientationCount(includeMirrors); i++) {
+                shapes[count++] = type.getOrientation(i).getMask();
+            }
+        }
+        this.pocketShapes = Arrays.copyOf(shapes, count);
+        reset();
+    }
+
+    /** Makes the whole board one empty region. */
+    public void reset() {
+        Arrays.fill(regionOf, 0);
+        freeCount = 0;
+        nextId = 1;
+        regionCount = 1;
+        sizes[0] = rows * cols;
+        dead[0] = false;
+        deadCount = 0;
+        updateDead(0, 0);
+    }
+
+    /** Makes this tracker equal to other, which must be for the same board size. */
+    public void copyFrom(RegionTracker other) {
+        if (other.rows != rows || other.cols != cols) {
+            throw new IllegalArgumentException("Board size mismatch");
+        }
+        System.arraycopy(other.regionOf, 0, regionOf, 0, regionOf.length);
+        sizes = other.sizes.clone();
+        dead = other.dead.clone();
+        freeIds = other.freeIds.clone();
+        freeCount = other.freeCount;
+        nextId = other.nextId;
+        regionCount = other.regionCount;
+        deadCount = other.deadCount;
+    }
+
+    /**
+     * Call after the given empty cells (row * cols + col, at most 5 and connected, e.g.
+     * one piece) were filled.
+     */
+    public void cellsFilled(int[] cells, int count) {
+        int region = regionOf[cells[0]];
+        int minRow = rows, maxRow = 0, minCol = cols, maxCol = 0;
+        for (int i = 0; i < count; i++) {
+            regionOf[cells[i]] = FILLED;
+            minRow = Math.min(minRow, cells[i] / cols);
+            maxRow = Math.max(maxRow, cells[i] / cols);
+            minCol = Math.min(minCol, cells[i] % cols);
+            maxCol = Math.max(maxCol, cells[i] % cols);
+        }
+        sizes[region] -= count;
+
+        int seedCount = collectSeeds(cells, count);
+        if (seedCount == 0) {
+            releaseRegion(region);
+            return;
+        }
+        int groups = groupSeedsInWindow(seedCount, minRow - WINDOW_MARGIN, maxRow + WINDOW_MARGIN,
+                minCol - WINDOW_MARGIN, maxCol + WINDOW_MARGIN);
+        if (groups > 1) {
+            split(region, groups);
+        } else {
+            updateDead(region, seeds[0]);
+        }
+    }
+
+    /** Call after the given filled cells (at most 5 and connected, e.g. one piece) were emptied. */
+    public void cellsEmptied(int[] cells, int count) {
+        // The largest neighbouring region absorbs the cells and the other neighbouring regions
+        int survivor = -1;
+        int seedCount = collectSeeds(cells, count);
+        for (int i = 0; i < seedCount; i++) {
+            int region = regionOf[seeds[i]];
+            if (survivor < 0 || sizes[region] > sizes[survivor]) {
+                survivor = region;
+            }
+        }
+        if (survivor < 0) {
+            survivor = newRegion();
+        }
+        for (int i = 0; i < seedCount; i++) {
+            int region = regionOf[seeds[i]];
+            if (region != survivor) {
+                sizes[survivor] += relabel(seeds[i], region, survivor);
+                releaseRegion(region);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            regionOf[cells[i]] = survivor;
+        }
+        sizes[survivor] += count;
+        updateDead(survivor, cells[0]);
+    }
+
+    // Empty 4-neighbours of the cells, without duplicates, into seeds
+    private int collectSeeds(int[] cells, int count) {
+        int seedCount = 0;
+        for (int i = 0; i < count; i++) {
+            int row = cells[i] / cols;
+            int col = cells[i] % cols;
+            seedCount = addSeed(seedCount, row - 1, col);
+            seedCount = addSeed(seedCount, row + 1, col);
+            seedCount = addSeed(seedCount, row, col - 1);
+            seedCount = addSeed(seedCount, row, col + 1);
+        }
+        return seedCount;
+    }
+
+    private int addSeed(int seedCount, int row, int col) {
+        if (row < 0 || col < 0 || row >= rows || col >= cols || regionOf[row * cols + col] == FILLED) {
+            return seedCount;
+        }
+        int cell = row * cols + col;
+        for (int i = 0; i < seedCount; i++) {
+            if (seeds[i] == cell) {
+                return seedCount;
+            }
+        }
+        seeds[seedCount] = cell;
+        return seedCount + 1;
+    }
+
+    /**
+     * Joins seeds connected inside the window (union-find over its cells) and leaves one
+     * seed per group at the front of seeds. Returns the number of groups.
+     */
+    private int groupSeedsInWindow(int seedCount, int top, int bottom, int left, int right) {
+        top = Math.max(top, 0);
+        bottom = Math.min(bottom, rows - 1);
+        left = Math.max(left, 0);
+        right = Math.min(right, cols - 1);
+        int width = right - left + 1;
+
+        for (int r = top; r <= bottom; r++) {
+            for (int c = left; c <= right; c++) {
+                int w = (r - top) * width + c - left;
+                windowParent[w] = w;
+                if (regionOf[r * cols + c] == FILLED) {
+                    continue;
+                }
+                if (c > left && regionOf[r * cols + c - 1] != FILLED) {
+                    union(w, w - 1);
+                }
+                if (r > top && regionOf[(r - 1) * cols + c] != FILLED) {
+                    union(w, w - width);
+                }
+            }
+        }
+
+        int groups = 0;
+        for (int i = 0; i < seedCount; i++) {
+            int root = find((seeds[i] / cols - top) * width + seeds[i] % cols - left);
+            boolean known = false;
+            for (int j = 0; j < groups && !known; j++) {
+                known = find((seeds[j] / cols - top) * width + seeds[j] % cols - left) == root;
+            }
+            if (!known) {
+                seeds[groups++] = seeds[i];
+            }
+        }
+        return groups;
+    }
+
+    private int find(int w) {
+        while (windowParent[w] != w) {
+            windowParent[w] = windowParent[windowParent[w]];
+            w = windowParent[w];
+        }
+        return w;
+    }
+
+    private void union(int a, int b) {
+        windowParent[find(a)] = find(b);
+    }
+
+    /**
+     * Flood fills from the first groups seeds in lockstep. Fills that meet are merged;
+     * once at most one group is still growing, every finished group is a region of its
+     * own and the rest keeps the old id.
+     */
+    private void split(int region, int groups) {
+        nextStamp();
+        for (int g = 0; g < groups; g++) {
+            group[g] = g;
+            queueHead[g] = 0;
+            queueTail[g] = 0;
+            push(g, seeds[g]);
+            mark[seeds[g]] = stamp + g;
+        }
+
+        int growing = groups;
+        while (growing > 1) {
+            for (int g = 0; g < groups; g++) {
+                if (queueHead[g] < queueTail[g]) {
+                    expand(g, queues[g][queueHead[g]++]);
+                    groupsChanged |= queueHead[g] == queueTail[g];
+                }
+            }
+            if (groupsChanged) {
+                groupsChanged = false;
+                growing = growingRoots(groups);
+            }
+        }
+
+        // Every root whose fills have all finished is a separate region; if all have, the
+        // largest keeps the old id so the fewest cells are relabelled
+        int keep = -1;
+        for (int g = 0; g < groups; g++) {
+            if (root(g) == g && isGrowing(g, groups)) {
+                keep = g;
+            }
+        }
+        if (keep < 0) {
+            for (int g = 0; g < groups; g++) {
+                if (root(g) == g && (keep < 0 || componentSize(g, groups) > componentSize(keep, groups))) {
+                    keep = g;
+                }
+            }
+        }
+
+        for (int g = 0; g < groups; g++) {
+            if (root(g) != g || g == keep) {
+                continue;
+            }
+            int id = newRegion();
+            for (int h = 0; h < groups; h++) {
+                if (root(h) == g) {
+                    for (int i = 0; i < queueTail[h]; i++) {
+                        regionOf[queues[h][i]] = id;
+                    }
+                    sizes[id] += queueTail[h];
+                }
+            }
+            sizes[region] -= sizes[id];
+            updateDead(id, seeds[g]);
+        }
+        updateDead(region, seeds[keep]);
+    }
+
+    private void expand(int g, int cell) {
+        int row = cell / cols;
+        int col = cell % cols;
+        if (row > 0) visit(g, cell - cols);
+        if (row < rows - 1) visit(g, cell + cols);
+        if (col > 0) visit(g, cell - 1);
+        if (col < cols - 1) visit(g, cell + 1);
+    }
+
+    private void visit(int g, int cell) {
+        if (regionOf[cell] == FILLED) {
+            return;
+        }
+        int seen = mark[cell] - stamp;
+        if (seen >= 0 && seen < MAX_SEEDS) {
+            // Reached by a fill already, join it if it is another group's
+            int a = root(g);
+            int b = root(seen);
+            if (a != b) {
+                group[Math.max(a, b)] = Math.min(a, b);
+                groupsChanged = true;
+            }
+            return;
+        }
+        mark[cell] = stamp + g;
+        push(g, cell);
+    }
+
+    private void push(int g, int cell) {
+        if (queueTail[g] == queues[g].length) {
+            queues[g] = Arrays.copyOf(queues[g], queueTail[g] * 2);
+        }
+        queues[g][queueTail[g]++] = cell;
+    }
+
+    private int root(int g) {
+        while (group[g] != g) {
+            g = group[g];
+        }
+        return g;
+    }
+
+    // A root is growing while any fill in its group still has cells to expand
+    private boolean isGrowing(int g, int groups) {
+        for (int h = 0; h < groups; h++) {
+            if (root(h) == g && queueHead[h] < queueTail[h]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int growingRoots(int groups) {
+        int count = 0;
+        for (int g = 0; g < groups; g++) {
+            if (root(g) == g && isGrowing(g, groups)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int componentSize(int g, int groups) {
+        int size = 0;
+        for (int h = 0; h < groups; h++) {
+            if (root(h) == g) {
+                size += queueTail[h];
+            }
+        }
+        return size;
+    }
+
+    // Relabels the region from one of its cells, returns the number of cells
+    private int relabel(int start, int from, int to) {
+        int count = 0;
+        queueHead[0] = 0;
+        queueTail[0] = 0;
+        push(0, start);
+        regionOf[start] = to;
+        while (queueHead[0] < queueTail[0]) {
+            int cell = queues[0][queueHead[0]++];
+            count++;
+            int row = cell / cols;
+            int col = cell % cols;
+            if (row > 0 && regionOf[cell - cols] == from) {
+                regionOf[cell - cols] = to;
+                push(0, cell - cols);
+            }
+            if (row < rows - 1 && regionOf[cell + cols] == from) {
+                regionOf[cell + cols] = to;
+                push(0, cell + cols);
+            }
+            if (col > 0 && regionOf[cell - 1] == from) {
+                regionOf[cell - 1] = to;
+                push(0, cell - 1);
+            }
+            if (col < cols - 1 && regionOf[cell + 1] == from) {
+                regionOf[cell + 1] = to;
+                push(0, cell + 1);
+            }
+        }
+        return count;
+    }
+
+    private void nextStamp() {
+        if (stamp > Integer.MAX_VALUE - 2 * MAX_SEEDS) {
+            Arrays.fill(mark, 0);
+            stamp = 0;
+        }
+        stamp += MAX_SEEDS;
+    }
+
+    // --- Region ids and dead regions ---
+
+    private int newRegion() {
+        int id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+        if (id == sizes.length) {
+            sizes = Arrays.copyOf(sizes, id * 2);
+            dead = Arrays.copyOf(dead, id * 2);
+        }
+        sizes[id] = 0;
+        dead[id] = false;
+        regionCount++;
+        return id;
+    }
+
+    private void releaseRegion(int id) {
+        if (dead[id]) {
+            dead[id] = false;
+            deadCount--;
+        }
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+        regionCount--;
+    }
+
+    // Recomputes whether the region, which contains the given cell, can still be filled
+    private void updateDead(int id, int cell) {
+        boolean isDead = sizes[id] % 5 != 0 || (sizes[id] == 5 && !isPentomino(cell));
+        if (isDead != dead[id]) {
+            dead[id] = isDead;
+            deadCount += isDead ? 1 : -1;
+        }
+    }
+
+    // Whether the 5-cell region around the cell has the shape of an allowed orientation
+    private boolean isPentomino(int start) {
+        int region = regionOf[start];
+        int count = 1;
+        pocket[0] = start;
+        for (int i = 0; i < count; i++) {
+            int row = pocket[i] / cols;
+            int col = pocket[i] % cols;
+            count = addToPocket(count, region, row - 1, col);
+            count = addToPocket(count, region, row + 1, col);
+            count = addToPocket(count, region, row, col - 1);
+            count = addToPocket(count, region, row, col + 1);
+        }
+
+        int minRow = rows, minCol = cols;
+        for (int cell : pocket) {
+            minRow = Math.min(minRow, cell / cols);
+            minCol = Math.min(minCol, cell % cols);
+        }
+        long mask = 0L;
+        for (int cell : pocket) {
+            mask |= 1L << ((cell / cols - minRow) * 8 + cell % cols - minCol);
+        }
+        return contains(pocketShapes, mask);
+    }
+
+    private int addToPocket(int count, int region, int row, int col) {
+        if (row < 0 || col < 0 || row >= rows || col >= cols || regionOf[row * cols + col] != region) {
+            return count;
+        }
+        int cell = row * cols + col;
+        for (int i = 0; i < count; i++) {
+            if (pocket[i] == cell) {
+                return count;
+            }
+        }
+        pocket[count] = cell;
+        return count + 1;
+    }
+
+    private static boolean contains(long[] masks, long mask) {
+        for (long m : masks) {
+            if (m == mask) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** True when some region can never be filled, so neither can the board. */
+    public boolean hasDeadRegion() { return deadCount > 0; }
+
+    public int getDeadRegionCount() { return deadCount; }
+    public int getRegionCount() { return regionCount; }
+
+    /** Number of empty cells in the region of the given empty cell. */
+    public int getRegionSize(int row, int col) {
+        int region = regionOf[row * cols + col];
+        return region == FILLED ? 0 : sizes[region];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,198 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays many headless games at once, one virtual thread per game, each on its
+ * own ManualClock, and prints win rate, end reasons and game length distribution.
+ *
+ * Usage: java SelfPlaySimulator [games] [seed] [thinkMillis] [solverBudgetMillis] [recordDir|-] [random|bag|fit]
+ */
+public class SelfPlaySimulator {
+
+    private static final int LENGTH_BUCKET_SECONDS = 30;
+
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final Map<String, LongAdder> endReasons = new ConcurrentHashMap<>();
+    private final AtomicLongArray lengthHistogram = new AtomicLongArray(300 / LENGTH_BUCKET_SECONDS + 1);
+    private long solverBudgetMillis = 20;
+    private Path recordDirectory;
+    private BeamSearchPlayer player;
+    private String dealing = "random";
+
+    /** Budget of each game's dead-board check, 0 plays by the move rules alone. */
+    public void setSolverBudgetMillis(long solverBudgetMillis) {
+        this.solverBudgetMillis = solverBudgetMillis;
+    }
+
+    /** Writes a move log of every game into the directory, null (the default) records nothing. */
+    public void setRecordDirectory(Path recordDirectory) {
+        this.recordDirectory = recordDirectory;
+    }
+
+    /** Moves with the player's choice instead of a random legal move, null (the default) plays randomly. */
+    public void setPlayer(BeamSearchPlayer player) {
+        this.player = player;
+    }
+
+    /**
+     * How pieces are dealt: "random" (the default) draws types uniformly, "bag" deals from a
+     * BagPieceSource and "fit" from one that only deals types that still fit on the board.
+     */
+    public void setDealing(String dealing) {
+        if (!dealing.equals("random") && !dealing.equals("bag") && !dealing.equals("fit")) {
+            throw new IllegalArgumentException("Unknown dealing " + dealing);
+        }
+        this.dealing = dealing;
+    }
+
+    /** Plays one game to the end, moving after every thinkMillis of simulated time. */
+    public void playGame(long seed, long thinkMillis) {
+        Random random = new Random(seed);
+        ManualClock clock = new ManualClock();
+        long dealSeed = random.nextLong();
+        BagPieceSource bag = dealing.equals("random") ? null : new BagPieceSource(dealSeed);
+        PentominoGame game = new PentominoGame(clock, bag != null ? bag : new RandomPieceSource(new Random(dealSeed)));
+        if (bag != null && dealing.equals("fit")) {
+            bag.setFitIndex(game.getBoard().getPlacementIndex());
+        }
+        game.setSolverBudgetMillis(solverBudgetMillis);
+
+        MoveLogWriter moveLog = null;
+        if (recordDirectory != null) {
+            try {
+                moveLog = new MoveLogWriter(recordDirectory, dealSeed);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            game.setRecorder(moveLog);
+        }
+
+        String[] endReason = new String[1];
+        game.addListener(new GameListener() {
+            @Override public void onTimeChanged(int timeRemaining) { }
+            @Override public void onStateChanged() { }
+            @Override public void onGameStarted() { }
+
+            @Override
+            public void onGameOver(boolean didWin, String message) {
+                endReason[0] = message;
+            }
+        });
+
+        game.startGame();
+        while (!game.isGameOver()) {
+            clock.advance(thinkMillis);
+            if (!game.isGameOver() && (player != null ? player.play(game) : makeRandomMove(game, random))) {
+                moves.increment();
+            }
+        }
+
+        if (moveLog != null) {
+            moveLog.close();
+        }
+        if (game.didWin()) {
+            wins.increment();
+        }
+        endReasons.computeIfAbsent(endReason[0], k -> new LongAdder()).increment();
+        int length = 300 - Math.max(game.getTimeRemaining(), 0);
+        lengthHistogram.incrementAndGet(length / LENGTH_BUCKET_SECONDS);
+    }
+
+    /** Places a random pool piece in a random rotation at a random legal anchor. */
+    static boolean makeRandomMove(PentominoGame game, Random random) {
+        GameBoard board = game.getBoard();
+        PlacementIndex index = board.getPlacementIndex();
+        List<Piece> pieces = game.getPiecePool().getAvailablePieces();
+
+        int candidates = 0;
+        for (Piece piece : pieces) {
+            PentominoType type = piece.getType();
+            for (int i = 0; i < type.getOrientationCount(false); i++) {
+                candidates += index.getAnchorCount(type.getOrientation(i).getIndex());
+            }
+        }
+        if (candidates == 0) {
+            return false;
+        }
+
+        int pick = random.nextInt(candidates);
+        for (Piece piece : pieces) {
+            PentominoType type = piece.getType();
+            for (int i = 0; i < type.getOrientationCount(false); i++) {
+                int o = type.getOrientation(i).getIndex();
+                int count = index.getAnchorCount(o);
+                if (pick >= count) {
+                    pick -= count;
+                    continue;
+                }
+
+                int anchor = index.nextLegalAnchor(o, 0);
+                while (pick-- > 0) {
+                    anchor = index.nextLegalAnchor(o, anchor + 1);
+                }
+                while (piece.getOrientation().getLocalIndex() != i) {
+                    game.rotatePiece(piece, true);
+                }
+                return game.placePiece(piece, anchor / board.getCols(), anchor % board.getCols());
+            }
+        }
+        return false;
+    }
+
+    public void run(int games, long seed, long thinkMillis) throws InterruptedException {
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < games; i++) {
+                long gameSeed = seed + i;
+                executor.submit(() -> playGame(gameSeed, thinkMillis));
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games in %.2fs (%.0f games/sec), %.1f moves/game%n",
+                games, seconds, games / seconds, moves.doubleValue() / games);
+        System.out.printf("Win rate: %.2f%%%n", 100.0 * wins.sum() / games);
+
+        System.out.println("End reasons:");
+        new TreeMap<>(endReasons).forEach((reason, count) ->
+                System.out.printf("  %-28s %d%n", reason, count.sum()));
+
+        System.out.println("Game length (simulated seconds):");
+        for (int b = 0; b < lengthHistogram.length(); b++) {
+            long count = lengthHistogram.get(b);
+            if (count > 0) {
+                System.out.printf("  %3d-%3ds %d%n", b * LENGTH_BUCKET_SECONDS,
+                        (b + 1) * LENGTH_BUCKET_SECONDS - 1, count);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        long thinkMillis = args.length > 2 ? Long.parseLong(args[2]) : 2000L;
+
+        SelfPlaySimulator simulator = new SelfPlaySimulator();
+        if (args.length > 3) {
+            simulator.setSolverBudgetMillis(Long.parseLong(args[3]));
+        }
+        if (args.length > 4 && !args[4].equals("-")) {
+            simulator.setRecordDirectory(Path.of(args[4]));
+        }
+        if (args.length > 5) {
+            simulator.setDealing(args[5]);
+        }
+        simulator.run(games, seed, thinkMillis);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,473 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Saved games for many sessions in one memory-mapped file of fixed-size records,
+ * one per session, for boards of one size. A record holds the occupancy as a
+ * packed bitboard, a piece number per cell (1 byte, 2 on boards with more than
+ * 255 pieces), the PiecePalette color of every piece on the board, the pool and
+ * the clock.
+ *
+ * Sessions are found through an in-memory open-addressing index from session
+ * id to record, rebuilt from the file on open. Saving writes straight from the
+ * board into the mapped record, so it allocates nothing once the record exists.
+ * The file grows by doubling when every record is in use.
+ *
+ * Usage: java SnapshotStore file [sessions] saves and loads that many self-played
+ * games and prints the rates.
+ */
+public class SnapshotStore implements Closeable {
+    private static final int MAGIC = 0x50534E50; // "PSNP"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Most pieces a saved game may have on offer, games with more cannot be saved. */
+    public static final int MAX_POOL = 8;
+
+    // Record layout, offsets in bytes from the start of the record
+    private static final int SESSION_ID = 0;   // long
+    private static final int IN_USE = 8;       // byte
+    private static final int POOL_COUNT = 9;   // byte
+    private static final int PIECE_COUNT = 10; // unsigned short, pieces on the board
+    private static final int TIME = 12;        // int, seconds remaining
+    private static final int TICKS = 16;       // int, seconds played
+    private static final int BITBOARD = 24;    // long per 64 cells, then the cells, colors and pool
+
+    private final FileChannel channel;
+    private final int rows;
+    private final int cols;
+    private final int cells;
+    private final int bytesPerCell;
+    private final int maxPieces;
+    private final int cellsOffset;
+    private final int colorsOffset;
+    private final int poolOffset;
+    private final int recordSize;
+
+    private MappedByteBuffer map;
+    private int capacity;
+
+    // Session id -> record number + 1 (0 marks an empty slot), linear probing
+    private long[] indexKeys;
+    private int[] indexRecords;
+    private int size;
+
+    private int[] freeRecords;
+    private int freeCount;
+
+    // Board slot -> piece number while saving, reset by bumping the generation
+    private final int[] slotNumbers;
+    private final int[] slotGenerations;
+    private int generation;
+    private final int[] loadSlots; // Piece number - 1 -> board slot while loading
+
+    /** Opens the store in file, creating it for rows x cols boards if it does not exist. */
+    public SnapshotStore(Path file, int rows, int cols) throws IOException {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+        this.maxPieces = cells / 5;
+        if (maxPieces > 0xFFFF) {
+            throw new IllegalArgumentException("Boards of " + rows + "x" + cols + " are too large to snapshot");
+        }
+        this.bytesPerCell = maxPieces < 0xFF ? 1 : 2;
+
+        int words = (cells + 63) >>> 6;
+        this.cellsOffset = BITBOARD + words * Long.BYTES;
+        this.colorsOffset = cellsOffset + cells * bytesPerCell;
+        this.poolOffset = colorsOffset + maxPieces;
+        this.recordSize = (poolOffset + MAX_POOL * 3 + 7) & ~7;
+
+        this.slotNumbers = new int[maxPieces + 1];
+        this.slotGenerations = new int[maxPieces + 1];
+        this.loadSlots = new int[maxPieces];
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                create();
+            } else {
+                open(file);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void create() throws IOException {
+        capacity = INITIAL_CAPACITY;
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize(capacity));
+        map.putInt(0, MAGIC);
+        map.putInt(4, VERSION);
+        map.putInt(8, rows);
+        map.putInt(12, cols);
+        map.putInt(16, recordSize);
+        map.putInt(20, capacity);
+        initIndex();
+    }
+
+    private void open(Path file) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (map.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot store: " + file);
+        }
+        if (map.getInt(4) != VERSION) {
+            throw new IOException("Snapshot store " + file + " has version " + map.getInt(4) + ", not " + VERSION);
+        }
+        if (map.getInt(8) != rows || map.getInt(12) != cols || map.getInt(16) != recordSize) {
+            throw new IOException("Snapshot store " + file + " holds " + map.getInt(8) + "x"
+                    + map.getInt(12) + " boards, not " + rows + "x" + cols);
+        }
+        capacity = map.getInt(20);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize(capacity));
+        initIndex();
+    }
+
+    // Rebuilds the index and the free list from the records' in-use flags
+    private void initIndex() {
+        indexKeys = new long[Integer.highestOneBit(capacity) << 2];
+        indexRecords = new int[indexKeys.length];
+        freeRecords = new int[capacity];
+        freeCount = 0;
+        size = 0;
+
+        for (int record = capacity - 1; record >= 0; record--) {
+            int base = offsetOf(record);
+            if (map.get(base + IN_USE) != 0) {
+                indexPut(map.getLong(base + SESSION_ID), record);
+            } else {
+                freeRecords[freeCount++] = record;
+            }
+        }
+    }
+
+    /** Saves the game's current state under sessionId, replacing an earlier save. */
+    public synchronized void save(long sessionId, PentominoGame game) throws IOException {
+        GameBoard board = game.getBoard();
+        checkSize(board);
+        int record = indexGet(sessionId);
+        boolean added = record < 0;
+        if (added) {
+            if (freeCount == 0) {
+                grow();
+            }
+            record = freeRecords[--freeCount];
+        }
+        try {
+            writeRecord(sessionId, game, offsetOf(record));
+        } catch (RuntimeException e) {
+            if (added) {
+                freeRecords[freeCount++] = record; // Still marked free, IN_USE is written last
+            }
+            throw e;
+        }
+        if (added) {
+            indexPut(sessionId, record);
+        }
+    }
+
+    private void writeRecord(long sessionId, PentominoGame game, int base) {
+        // Under the game's lock the board, pool and clock are from the same moment
+        synchronized (game) {
+            List<Piece> pool = game.getPiecePool().getAvailablePieces();
+            int poolCount = pool.size();
+            if (poolCount > MAX_POOL) {
+                throw new IllegalArgumentException("Cannot save a pool of " + poolCount + " pieces, at most "
+                        + MAX_POOL + " fit in a record");
+            }
+            int pieces = writeBoard(game.getBoard(), base);
+
+            for (int i = 0; i < poolCount; i++) {
+                Piece piece = pool.get(i);
+                int at = base + poolOffset + i * 3;
+                map.put(at, (byte) piece.getType().ordinal());
+                map.put(at + 1, (byte) piece.getOrientation().getLocalIndex());
+                map.put(at + 2, (byte) piece.getColorIndex());
+            }
+
+            map.putLong(base + SESSION_ID, sessionId);
+            map.put(base + POOL_COUNT, (byte) poolCount);
+            map.putShort(base + PIECE_COUNT, (short) pieces);
+            map.putInt(base + TIME, game.getTimeRemaining());
+            map.putInt(base + TICKS, game.getTicks());
+            map.put(base + IN_USE, (byte) 1);
+        }
+    }
+
+    // Writes bitboard, piece numbers and colors; returns the number of pieces on the board
+    private int writeBoard(GameBoard board, int base) {
+        generation++;
+        int pieces = 0;
+        int lastSlot = 0;
+        int lastNumber = 0;
+        long word = 0;
+
+        for (int r = 0, cell = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++, cell++) {
+                int slot = board.getCell(r, c);
+                int number = 0;
+                if (slot != 0) {
+                    word |= 1L << (cell & 63);
+                    if (slot != lastSlot) {
+                        lastNumber = pieceNumber(slot, pieces + 1);
+                        if (lastNumber > pieces) {
+                            pieces = lastNumber;
+                            map.put(base + colorsOffset + lastNumber - 1, (byte) board.getSlotColorIndex(slot));
+                        }
+                        lastSlot = slot;
+                    }
+                    number = lastNumber;
+                }
+
+                if (bytesPerCell == 1) {
+                    map.put(base + cellsOffset + cell, (byte) number);
+                } else {
+                    map.putShort(base + cellsOffset + cell * 2, (short) number);
+                }
+                if ((cell & 63) == 63) {
+                    map.putLong(base + BITBOARD + (cell >>> 6) * Long.BYTES, word);
+                    word = 0;
+                }
+            }
+        }
+        if ((cells & 63) != 0) {
+            map.putLong(base + BITBOARD + (cells >>> 6) * Long.BYTES, word);
+        }
+        return pieces;
+    }
+
+    // Number of the piece in the given board slot in this save, assigning next if it has none yet
+    private int pieceNumber(int slot, int next) {
+        if (slotGenerations[slot] != generation) {
+            slotGenerations[slot] = generation;
+            slotNumbers[slot] = next;
+        }
+        return slotNumbers[slot];
+    }
+
+    /**
+     * Replaces the game's state with the one saved under sessionId and resumes it.
+     * Returns false, leaving the game alone, when there is no such save.
+     */
+    public synchronized boolean load(long sessionId, PentominoGame game) {
+        checkSize(game.getBoard());
+        int record = indexGet(sessionId);
+        if (record < 0) {
+            return false;
+        }
+        int base = offsetOf(record);
+        int pieces = map.getShort(base + PIECE_COUNT) & 0xFFFF;
+
+        List<Piece> pool = new ArrayList<>(map.get(base + POOL_COUNT));
+        for (int i = 0; i < map.get(base + POOL_COUNT); i++) {
+            int at = base + poolOffset + i * 3;
+            Piece piece = new Piece(PentominoType.values()[map.get(at)], map.get(at + 2) & 0xFF);
+            piece.setOrientation(map.get(at + 1));
+            pool.add(piece);
+        }
+
+        synchronized (game) {
+            GameBoard board = game.getBoard();
+            board.reset();
+            for (int i = 0; i < pieces; i++) {
+                loadSlots[i] = board.newSlot(map.get(base + colorsOffset + i) & 0xFF);
+            }
+
+            // Only the occupied cells are visited, found through the bitboard
+            for (int w = 0; w < (cells + 63) >>> 6; w++) {
+                long word = map.getLong(base + BITBOARD + w * Long.BYTES);
+                while (word != 0) {
+                    int cell = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    int number = bytesPerCell == 1
+                            ? map.get(base + cellsOffset + cell) & 0xFF
+                            : map.getShort(base + cellsOffset + cell * 2) & 0xFFFF;
+                    board.setCell(cell / cols, cell % cols, loadSlots[number - 1]);
+                }
+            }
+
+            game.resumeGame(pool, map.getInt(base + TIME), map.getInt(base + TICKS));
+        }
+        return true;
+    }
+
+    private void checkSize(GameBoard board) {
+        if (board.getRows() != rows || board.getCols() != cols) {
+            throw new IllegalArgumentException("Snapshot store holds " + rows + "x" + cols + " boards, not "
+                    + board.getRows() + "x" + board.getCols());
+        }
+    }
+
+    /** Removes the save of sessionId. Returns false if there was none. */
+    public synchronized boolean delete(long sessionId) {
+        int record = indexRemove(sessionId);
+        if (record < 0) {
+            return false;
+        }
+        map.put(offsetOf(record) + IN_USE, (byte) 0);
+        freeRecords[freeCount++] = record;
+        return true;
+    }
+
+    public synchronized boolean contains(long sessionId) {
+        return indexGet(sessionId) >= 0;
+    }
+
+    /** Number of saved sessions. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Writes changed records through to the storage device. */
+    public synchronized void force() {
+        map.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+
+    private void grow() throws IOException {
+        long newCapacity = (long) capacity * 2;
+        if (mappedSize(newCapacity) > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot store is full at " + capacity + " sessions");
+        }
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize(newCapacity));
+        map.putInt(20, (int) newCapacity);
+
+        freeRecords = Arrays.copyOf(freeRecords, (int) newCapacity);
+        for (int record = (int) newCapacity - 1; record >= capacity; record--) {
+            freeRecords[freeCount++] = record;
+        }
+        capacity = (int) newCapacity;
+
+        if (capacity * 2 > indexKeys.length) {
+            long[] oldKeys = indexKeys;
+            int[] oldRecords = indexRecords;
+            indexKeys = new long[oldKeys.length * 2];
+            indexRecords = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldRecords[i] != 0) {
+                    indexPut(oldKeys[i], oldRecords[i] - 1);
+                }
+            }
+        }
+    }
+
+    private long mappedSize(long capacity) {
+        return HEADER_SIZE + capacity * recordSize;
+    }
+
+    private int offsetOf(int record) {
+        return HEADER_SIZE + record * recordSize;
+    }
+
+    // --- Session index ---
+
+    private int indexGet(long sessionId) {
+        int mask = indexKeys.length - 1;
+        for (int i = mix(sessionId) & mask; indexRecords[i] != 0; i = (i + 1) & mask) {
+            if (indexKeys[i] == sessionId) {
+                return indexRecords[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void indexPut(long sessionId, int record) {
+        int mask = indexKeys.length - 1;
+        int i = mix(sessionId) & mask;
+        while (indexRecords[i] != 0 && indexKeys[i] != sessionId) {
+            i = (i + 1) & mask;
+        }
+        if (indexRecords[i] == 0) {
+            size++;
+        }
+        indexKeys[i] = sessionId;
+        indexRecords[i] = record + 1;
+    }
+
+    // Removes with backward shifting, so lookups never need tombstones
+    private int indexRemove(long sessionId) {
+        int mask = indexKeys.length - 1;
+        int i = mix(sessionId) & mask;
+        while (indexRecords[i] != 0 && indexKeys[i] != sessionId) {
+            i = (i + 1) & mask;
+        }
+        if (indexRecords[i] == 0) {
+            return -1;
+        }
+        int record = indexRecords[i] - 1;
+        size--;
+
+        int gap = i;
+        for (int j = (i + 1) & mask; indexRecords[j] != 0; j = (j + 1) & mask) {
+            int home = mix(indexKeys[j]) & mask;
+            // The entry at j may fill the gap if its home slot is not between the gap and j
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                indexKeys[gap] = indexKeys[j];
+                indexRecords[gap] = indexRecords[j];
+                gap = j;
+            }
+        }
+        indexRecords[gap] = 0;
+        return record;
+    }
+
+    private static int mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args[0]);
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        // A handful of self-played games in different states, saved round robin
+        Random random = new Random(42);
+        PentominoGame[] games = new PentominoGame[16];
+        for (int i = 0; i < games.length; i++) {
+            ManualClock clock = new ManualClock();
+            games[i] = new PentominoGame(clock, new RandomPieceSource(new Random(i)));
+            games[i].setSolverBudgetMillis(0);
+            games[i].startGame();
+            for (int move = 0; move < i && !games[i].isGameOver(); move++) {
+                SelfPlaySimulator.makeRandomMove(games[i], random);
+            }
+        }
+
+        try (SnapshotStore store = new SnapshotStore(file, GameBoard.DEFAULT_ROWS, GameBoard.DEFAULT_COLS)) {
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                for (int s = 0; s < sessions; s++) {
+                    store.save(s, games[s % games.length]);
+                }
+                double saveSeconds = (System.nanoTime() - start) / 1e9;
+
+                PentominoGame target = new PentominoGame(new ManualClock(), new RandomPieceSource());
+                start = System.nanoTime();
+                for (int s = 0; s < sessions; s++) {
+                    store.load(s, target);
+                }
+                double loadSeconds = (System.nanoTime() - start) / 1e9;
+
+                System.out.printf("%d sessions: %.0f saves/sec, %.0f loads/sec, %d stored%n",
+                        sessions, sessions / saveSeconds, sessions / loadSeconds, store.size());
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,229 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts (and optionally streams) every tiling of a board region using all cores.
+ *
+ * The first few levels of the Algorithm X search tree are split into ForkJoinPool
+ * tasks, one per row choice; each leaf task then searches its subtree on its own
+ * copy of the DancingLinks matrix with its own counters, so workers never share
+ * mutable state and idle workers steal the remaining subtrees.
+ */
+public class SolutionEnumerator {
+
+    /**
+     * Receives each tiling on the worker thread that found it. The arrays belong to
+     * that worker and are reused, copy them to keep a solution. Must be thread-safe.
+     */
+    public interface SolutionListener {
+        void onSolution(int[] orientations, int[] rows, int[] cols, int count);
+    }
+
+    /** Totals of one enumerate() run. */
+    public static class Result {
+        private final long solutions;
+        private final long nodes;
+        private final long elapsedNanos;
+        private final int parallelism;
+
+        Result(long solutions, long nodes, long elapsedNanos, int parallelism) {
+            this.solutions = solutions;
+            this.nodes = nodes;
+            this.elapsedNanos = elapsedNanos;
+            this.parallelism = parallelism;
+        }
+
+        public long getSolutions() { return solutions; }
+        public long getNodes() { return nodes; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public int getParallelism() { return parallelism; }
+
+        public double getSolutionsPerSecond() {
+            return elapsedNanos == 0 ? 0 : solutions * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d solutions in %.2fs (%.0f solutions/sec, %d nodes, %d threads)",
+                    solutions, elapsedNanos / 1e9, getSolutionsPerSecond(), nodes, parallelism);
+        }
+    }
+
+    private final int cols;
+    private final int maxPlacements;
+    private final DancingLinks root;
+    private final int[] rowOrientation;
+    private final int[] rowAnchor;
+
+    private int splitDepth = 3;
+    private SolutionListener listener;
+
+    /**
+     * Builds the exact-cover matrix for the cells marked true in region. With eachTypeOnce
+     * every PentominoType has to be used exactly once (the classic puzzle, which needs a
+     * region of 5 * 12 cells); otherwise types may repeat.
+     */
+    public SolutionEnumerator(boolean[][] region, boolean includeMirrors, boolean eachTypeOnce) {
+        int rows = region.length;
+        this.cols = region[0].length;
+
+        int[] columnOfCell = new int[rows * cols];
+        int cellColumns = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                columnOfCell[r * cols + c] = region[r][c] ? cellColumns++ : -1;
+            }
+        }
+
+        this.maxPlacements = cellColumns / 5;
+
+        PentominoType[] types = PentominoType.values();
+        int columns = cellColumns + (eachTypeOnce ? types.length : 0);
+        int maxRows = PentominoType.getOrientationTotal() * rows * cols;
+        this.root = new DancingLinks(columns, maxRows, maxRows * 6);
+        this.rowOrientation = new int[maxRows];
+        this.rowAnchor = new int[maxRows];
+        root.clear(columns, columns);
+
+        int[] rowColumns = new int[6];
+        for (PentominoType type : types) {
+            for (int i = 0; i < type.getOrientationCount(includeMirrors); i++) {
+                Orientation orientation = type.getOrientation(i);
+
+                for (int r = 0; r + orientation.getRows() <= rows; r++) {
+                    for (int c = 0; c + orientation.getCols() <= cols; c++) {
+                        int count = 0;
+                        for (int k = 0; k < orientation.getCellCount(); k++) {
+                            int column = columnOfCell[(r + orientation.getCellRow(k)) * cols + c + orientation.getCellCol(k)];
+                            if (column < 0) {
+                                break;
+                            }
+                            rowColumns[count++] = column;
+                        }
+                        if (count < orientation.getCellCount()) {
+                            continue;
+                        }
+                        if (eachTypeOnce) {
+                            rowColumns[count++] = cellColumns + type.ordinal();
+                        }
+
+                        int row = root.addRow(rowColumns, count);
+                        rowOrientation[row] = orientation.getIndex();
+                        rowAnchor[row] = r * cols + c;
+                    }
+                }
+            }
+        }
+    }
+
+    /** The empty cells of a board as an enumeration region. */
+    public static boolean[][] regionOf(GameBoard board) {
+        boolean[][] region = new boolean[board.getRows()][board.getCols()];
+        for (int r = 0; r < region.length; r++) {
+            for (int c = 0; c < region[0].length; c++) {
+                region[r][c] = !board.isOccupied(r, c);
+            }
+        }
+        return region;
+    }
+
+    /** A full rows x cols rectangle as an enumeration region. */
+    public static boolean[][] rectangle(int rows, int cols) {
+        boolean[][] region = new boolean[rows][cols];
+        for (boolean[] row : region) {
+            Arrays.fill(row, true);
+        }
+        return region;
+    }
+
+    /** Number of search-tree levels that are split into separate tasks (default 3). */
+    public void setSplitDepth(int splitDepth) {
+        this.splitDepth = splitDepth;
+    }
+
+    /** Streams every solution to the listener as it is found (null to only count). */
+    public void setListener(SolutionListener listener) {
+        this.listener = listener;
+    }
+
+    public Result enumerate() {
+        return enumerate(ForkJoinPool.commonPool());
+    }
+
+    public Result enumerate(ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long[] totals = pool.invoke(new SearchTask(root, -1, 0));
+        return new Result(totals[0], totals[1], System.nanoTime() - start, pool.getParallelism());
+    }
+
+    // Returns {solutions, nodes} for the subtree below the rows already chosen in parent plus node
+    // (-1 for none). The task's own copy of the matrix is only made once it runs, so a split keeps
+    // one copy per running task alive rather than one per pending subtree.
+    @SuppressWarnings("serial") // Never serialized
+    private class SearchTask extends RecursiveTask<long[]> {
+        private final DancingLinks parent; // Not changed until every subtask has finished
+        private final int node;
+        private final int depth;
+
+        SearchTask(DancingLinks parent, int node, int depth) {
+            this.parent = parent;
+            this.node = node;
+            this.depth = depth;
+        }
+
+        @Override
+        protected long[] compute() {
+            DancingLinks state = new DancingLinks(parent);
+            if (node >= 0) {
+                state.choose(depth - 1, node);
+            }
+            if (depth >= splitDepth || state.isComplete()) {
+                return searchSubtree(state);
+            }
+
+            int column = state.chooseColumn();
+            if (state.getColumnSize(column) == 0) {
+                return new long[] {0, 1};
+            }
+
+            List<SearchTask> subtasks = new ArrayList<>();
+            for (int child = state.firstNodeOf(column); child != column; child = state.nextNodeOf(child)) {
+                subtasks.add(new SearchTask(state, child, depth + 1));
+            }
+
+            long[] totals = {0, 1};
+            for (SearchTask task : invokeAll(subtasks)) {
+                long[] result = task.join();
+                totals[0] += result[0];
+                totals[1] += result[1];
+            }
+            return totals;
+        }
+
+        private long[] searchSubtree(DancingLinks state) {
+            DancingLinks.SolutionListener forward = (dlx, solutionDepth) -> true;
+            if (listener != null) {
+                int[] orientations = new int[maxPlacements];
+                int[] rows = new int[maxPlacements];
+                int[] cols = new int[maxPlacements];
+
+                forward = (dlx, solutionDepth) -> {
+                    for (int i = 0; i < solutionDepth; i++) {
+                        int row = dlx.getRowAt(i);
+                        orientations[i] = rowOrientation[row];
+                        rows[i] = rowAnchor[row] / SolutionEnumerator.this.cols;
+                        cols[i] = rowAnchor[row] % SolutionEnumerator.this.cols;
+                    }
+                    listener.onSolution(orientations, rows, cols, solutionDepth);
+                    return true;
+                };
+            }
+
+            state.search(depth, 0L, forward);
+            return new long[] {state.getSolutionsFound(), state.getNodesVisited()};
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,229 @@
+import java.util.Random;
+
+/**
+ * Answers whether the empty cells of a GameBoard can still be tiled completely
+ * with pentominoes (any type, any number of times) and returns one such tiling.
+ *
+ * The empty cells become the columns of an exact-cover matrix and every legal
+ * placement from the board's PlacementIndex becomes a row. The matrix storage
+ * is allocated once per solver, so repeated solves and the search itself do
+ * not allocate.
+ *
+ * With a TranspositionTable set, results are cached by board hash: boards and
+ * sub-boards proven untileable are never searched again, and check() answers
+ * boards already solved without searching. Keys are canonical under the board's
+ * symmetries (see BoardSymmetry), so a position and its rotated or reflected
+ * copies are searched and stored once.
+ *
+ * Placements are tried in board order, or in a random order when one is set,
+ * which makes repeated solves of the same board find different tilings.
+ */
+public class TilingSolver {
+    // Mixed into the keys of solvers that allow mirror images, their answers differ
+    private static final long MIRRORS_KEY = 0x3C6EF372FE94F82BL;
+
+    private final int rows;
+    private final int cols;
+    private final boolean includeMirrors;
+
+    private final DancingLinks dlx;
+    private final int[] columnOfCell;
+    private final int[] rowOrientation;
+    private final int[] rowAnchor;
+    private final int[] rowColumns = new int[5];
+    private final BoardSymmetry symmetry;
+    private final long[] rootKeys;
+    private long[][] rowKeys; // Per symmetry, allocated with the table
+    private TranspositionTable table;
+    private Random rowOrder;
+
+    private DancingLinks.Status lastStatus = DancingLinks.Status.EXHAUSTED;
+    private int placementCount;
+
+    /** Solves with the rotations the player can make; includeMirrors also allows flipped pieces. */
+    public TilingSolver(int rows, int cols, boolean includeMirrors) {
+        this.rows = rows;
+        this.cols = cols;
+        this.includeMirrors = includeMirrors;
+
+        int cells = rows * cols;
+        int maxRows = PentominoType.getOrientationTotal() * cells;
+        this.dlx = new DancingLinks(cells, maxRows, maxRows * 5);
+        this.columnOfCell = new int[cells];
+        this.rowOrientation = new int[maxRows];
+        this.rowAnchor = new int[maxRows];
+        this.symmetry = BoardSymmetry.of(rows, cols, includeMirrors);
+        this.rootKeys = new long[symmetry.size()];
+    }
+
+    /** Caches results in the table, which may be shared with other solvers. Null for none. */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+        if (table != null && rowKeys == null) {
+            rowKeys = new long[symmetry.size()][rowOrientation.length];
+        }
+    }
+
+    /** Tries placements in an order shuffled by random on every solve, null (the default) for board order. */
+    public void setRandomOrder(Random random) {
+        this.rowOrder = random;
+    }
+
+    /** Gives up a solve after about maxNodes search nodes as well, 0 (the default) for no limit. */
+    public void setNodeLimit(long maxNodes) {
+        dlx.setNodeLimit(maxNodes);
+    }
+
+    /**
+     * Searches for a tiling of the board's empty cells for at most budgetMillis
+     * (0 for no limit). SOLVED means a tiling exists, EXHAUSTED means none does,
+     * TIMED_OUT and CANCELLED leave the question open.
+     */
+    public DancingLinks.Status solve(GameBoard board, long budgetMillis) {
+        long deadline = budgetMillis > 0 ? System.nanoTime() + budgetMillis * 1_000_000L : 0L;
+        placementCount = 0;
+        // The board's dead regions assume rotations only, a pocket may still fit a mirror image
+        if (!includeMirrors && board.hasDeadRegion()) {
+            lastStatus = DancingLinks.Status.EXHAUSTED;
+            return lastStatus;
+        }
+        long key = keyOf(board);
+        if (table != null && TranspositionTable.result(table.probe(key)) == TranspositionTable.UNSOLVABLE) {
+            lastStatus = DancingLinks.Status.EXHAUSTED;
+            return lastStatus;
+        }
+
+        build(board);
+        dlx.setMemo(table, rowKeys, rootKeys);
+        lastStatus = dlx.search(deadline, null);
+        if (lastStatus == DancingLinks.Status.SOLVED) {
+            placementCount = dlx.getSolutionDepth();
+        }
+
+        if (table != null && lastStatus == DancingLinks.Status.SOLVED) {
+            // The move is in this board's coordinates, so only kept when they are the canonical ones
+            int first = dlx.getRowAt(0);
+            if (key == rootKeys[0]) {
+                table.store(key, TranspositionTable.SOLVABLE, workOf(), rowOrientation[first], rowAnchor[first]);
+            } else {
+                table.store(key, TranspositionTable.SOLVABLE, workOf(), TranspositionTable.NO_MOVE, 0);
+            }
+        } else if (table != null && lastStatus == DancingLinks.Status.EXHAUSTED) {
+            table.store(key, TranspositionTable.UNSOLVABLE, workOf(), TranspositionTable.NO_MOVE, 0);
+        }
+        return lastStatus;
+    }
+
+    /**
+     * Like solve(), but a board whose answer is in the table is answered from it. No
+     * tiling is available afterwards (getPlacementCount() is 0) when that happens.
+     */
+    public DancingLinks.Status check(GameBoard board, long budgetMillis) {
+        if (table != null) {
+            int result = TranspositionTable.result(table.probe(keyOf(board)));
+            if (result == TranspositionTable.SOLVABLE || result == TranspositionTable.UNSOLVABLE) {
+                placementCount = 0;
+                lastStatus = result == TranspositionTable.SOLVABLE
+                        ? DancingLinks.Status.SOLVED : DancingLinks.Status.EXHAUSTED;
+                return lastStatus;
+            }
+        }
+        return solve(board, budgetMillis);
+    }
+
+    // Fills rootKeys with the board's hash under each symmetry and returns the canonical one
+    private long keyOf(GameBoard board) {
+        symmetry.hashes(board, rootKeys);
+        if (includeMirrors) {
+            for (int s = 0; s < rootKeys.length; s++) {
+                rootKeys[s] ^= MIRRORS_KEY;
+            }
+        }
+        return BoardSymmetry.min(rootKeys, 0, rootKeys.length);
+    }
+
+    // Table depth of a result: the number of bits in the node count, bigger searches are kept longer
+    private int workOf() {
+        return 64 - Long.numberOfLeadingZeros(dlx.getNodesVisited());
+    }
+
+    private void build(GameBoard board) {
+        int emptyCells = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                columnOfCell[r * cols + c] = board.isOccupied(r, c) ? -1 : emptyCells++;
+            }
+        }
+        dlx.clear(emptyCells, emptyCells);
+
+        // Collect the legal placements first, so they can be shuffled before becoming rows
+        int count = 0;
+        PlacementIndex index = board.getPlacementIndex();
+        for (PentominoType type : PentominoType.values()) {
+            for (int i = 0; i < type.getOrientationCount(includeMirrors); i++) {
+                Orientation orientation = type.getOrientation(i);
+                int o = orientation.getIndex();
+                if (index.getAnchorCount(o) == 0) {
+                    continue;
+                }
+
+                for (int r = 0; r + orientation.getRows() <= rows; r++) {
+                    for (int c = 0; c + orientation.getCols() <= cols; c++) {
+                        if (index.isLegal(o, r, c)) {
+                            rowOrientation[count] = o;
+                            rowAnchor[count] = r * cols + c;
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        if (rowOrder != null) {
+            for (int i = count - 1; i > 0; i--) {
+                int j = rowOrder.nextInt(i + 1);
+                int o = rowOrientation[i];
+                rowOrientation[i] = rowOrientation[j];
+                rowOrientation[j] = o;
+                int anchor = rowAnchor[i];
+                rowAnchor[i] = rowAnchor[j];
+                rowAnchor[j] = anchor;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            Orientation orientation = PentominoType.getOrientationByIndex(rowOrientation[i]);
+            int r = rowAnchor[i] / cols;
+            int c = rowAnchor[i] % cols;
+            for (int k = 0; k < orientation.getCellCount(); k++) {
+                int cell = (r + orientation.getCellRow(k)) * cols + c + orientation.getCellCol(k);
+                rowColumns[k] = columnOfCell[cell];
+            }
+            dlx.addRow(rowColumns, orientation.getCellCount()); // Row ids follow i
+            if (table != null) {
+                for (int s = 0; s < rowKeys.length; s++) {
+                    rowKeys[s][i] = symmetry.placementKey(symmetry.get(s), orientation, r, c);
+                }
+            }
+        }
+    }
+
+    /** Stops a running solve() from another thread; it then returns CANCELLED. */
+    public void cancel() {
+        dlx.cancel();
+    }
+
+    public DancingLinks.Status getLastStatus() { return lastStatus; }
+
+    // --- Tiling found by the last successful solve() ---
+
+    public int getPlacementCount() { return placementCount; }
+
+    public Orientation getPlacementOrientation(int i) {
+        return PentominoType.getOrientationByIndex(rowOrientation[dlx.getRowAt(i)]);
+    }
+
+    public int getPlacementRow(int i) { return rowAnchor[dlx.getRowAt(i)] / cols; }
+    public int getPlacementCol(int i) { return rowAnchor[dlx.getRowAt(i)] % cols; }
+
+    public long getNodesVisited() { return dlx.getNodesVisited(); }
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size cache of search results keyed by board hash (GameBoard.getHash()),
+ * shared without locks between any number of searching threads.
+ *
+ * Each slot is two longs, the entry and the key XOR the entry. A reader only
+ * accepts a slot whose two halves agree with the key it looks for, so a slot
+ * torn by two threads writing at once reads as a miss instead of a wrong
+ * result. Entries are packed longs (see the accessors below) and nothing is
+ * allocated per store or probe.
+ */
+public class TranspositionTable {
+
+    /** Which entry a store keeps when its slot already holds another position. */
+    public enum Policy {
+        /** The newest entry always wins. */
+        ALWAYS_REPLACE,
+        /** Keeps the entry with the greater depth, unless it is from an earlier generation. */
+        DEPTH_PREFERRED
+    }
+
+    public static final int SOLVABLE = 1;
+    public static final int UNSOLVABLE = 2;
+    public static final int UNKNOWN = 3; // Only a best move is known
+    public static final int NO_MOVE = -1;
+
+    /** Returned by probe() when the position is not in the table. */
+    public static final long MISS = 0L;
+
+    // Entry layout: result 2 bits, generation 6 bits, depth 16 bits, orientation + 1 8 bits, anchor 32 bits
+    private static final int GENERATION_SHIFT = 2;
+    private static final int DEPTH_SHIFT = 8;
+    private static final int ORIENTATION_SHIFT = 24;
+    private static final int ANCHOR_SHIFT = 32;
+    private static final int GENERATION_MASK = 0x3F;
+    public static final int MAX_DEPTH = 0xFFFF;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final Policy policy;
+    private volatile int generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /** A table of at least the given number of entries (rounded up to a power of two). */
+    public TranspositionTable(int entries, Policy policy) {
+        if (entries < 1 || entries > 1 << 29) {
+            throw new IllegalArgumentException("Entries must be between 1 and 2^29, got " + entries);
+        }
+        int capacity = Integer.highestOneBit(entries);
+        if (capacity < entries) {
+            capacity <<= 1;
+        }
+        this.slots = new AtomicLongArray(2 * capacity);
+        this.mask = capacity - 1;
+        this.policy = policy;
+    }
+
+    /** Returns the entry stored for the hash, or MISS. */
+    public long probe(long hash) {
+        int slot = slotOf(hash);
+        long entry = slots.get(slot + 1);
+        if (entry != MISS && (slots.get(slot) ^ entry) == hash) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        return MISS;
+    }
+
+    /**
+     * Stores a result for the hash. Depth (capped at MAX_DEPTH) says how much work the result
+     * stands for, DEPTH_PREFERRED keeps the deeper of two entries. The best move is an
+     * orientation index and anchor (row * cols + col), or NO_MOVE for both.
+     */
+    public void store(long hash, int result, int depth, int orientationIndex, int anchor) {
+        if (result < SOLVABLE || result > UNKNOWN) {
+            throw new IllegalArgumentException("Unknown result " + result);
+        }
+        int slot = slotOf(hash);
+        long entry = pack(result, Math.min(depth, MAX_DEPTH), orientationIndex, anchor);
+
+        long old = slots.get(slot + 1);
+        if (old != MISS && (slots.get(slot) ^ old) != hash) {
+            if (policy == Policy.DEPTH_PREFERRED && generationOf(old) == (generation & GENERATION_MASK)
+                    && depth(old) > depth(entry)) {
+                rejections.increment();
+                return;
+            }
+            evictions.increment();
+        }
+        slots.set(slot, hash ^ entry);
+        slots.set(slot + 1, entry);
+        stores.increment();
+    }
+
+    /** Starts a new generation: DEPTH_PREFERRED then lets new entries replace any older one. */
+    public void newGeneration() {
+        generation++;
+    }
+
+    /** Empties the table. Counters are kept, see resetCounters(). */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, 0L);
+        }
+    }
+
+    private int slotOf(long hash) {
+        // The low bits pick the slot, the whole hash is verified on probe
+        return ((int) (hash ^ (hash >>> 32)) & mask) << 1;
+    }
+
+    private long pack(int result, int depth, int orientationIndex, int anchor) {
+        long move = orientationIndex < 0 ? 0L
+                : (long) (orientationIndex + 1) << ORIENTATION_SHIFT | (anchor & 0xFFFFFFFFL) << ANCHOR_SHIFT;
+        return result | (long) (generation & GENERATION_MASK) << GENERATION_SHIFT
+                | (long) depth << DEPTH_SHIFT | move;
+    }
+
+    private static int generationOf(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    // --- Fields of an entry returned by probe() ---
+
+    public static int result(long entry) { return (int) entry & 3; }
+    public static int depth(long entry) { return (int) (entry >>> DEPTH_SHIFT) & MAX_DEPTH; }
+
+    /** Orientation index of the best move, or NO_MOVE. */
+    public static int bestOrientation(long entry) { return (int) (entry >>> ORIENTATION_SHIFT & 0xFF) - 1; }
+
+    /** Anchor (row * cols + col) of the best move, only valid when there is one. */
+    public static int bestAnchor(long entry) { return (int) (entry >>> ANCHOR_SHIFT); }
+
+    // --- Counters ---
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getStores() { return stores.sum(); }
+
+    /** Stores that overwrote the entry of another position. */
+    public long getEvictions() { return evictions.sum(); }
+
+    /** Stores DEPTH_PREFERRED dropped to keep a deeper entry. */
+    public long getRejections() { return rejections.sum(); }
+
+    public int getCapacity() { return mask + 1; }
+
+    public void resetCounters() {
+        hits.reset();
+        misses.reset();
+        stores.reset();
+        evictions.reset();
+        rejections.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TranspositionTable[%d entries, %s, hits=%d misses=%d stores=%d evictions=%d rejections=%d]",
+                getCapacity(), policy, getHits(), getMisses(), getStores(), getEvictions(), getRejections());
+    }
+}
\ No newline at end of file
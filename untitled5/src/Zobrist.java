@@ -0,0 +1,32 @@
+/**
+ * Zobrist keys for board positions. A position's hash is the key of its board
+ * size XOR the keys of its filled cells, so filling or emptying a cell is one
+ * XOR and the same occupancy always hashes the same, however it was reached.
+ * Keys are computed from the coordinates with the SplitMix64 finalizer instead
+ * of being looked up in a random table, so even a 1000x1000 board needs no
+ * table and every run and every board agree on them.
+ */
+public final class Zobrist {
+    private static final long CELL_SEED = 0x6A09E667F3BCC909L;
+    private static final long SIZE_SEED = 0xBB67AE8584CAA73BL;
+
+    private Zobrist() {
+    }
+
+    /** Key of a filled cell. */
+    public static long cellKey(int row, int col) {
+        return mix(((long) row << 32 | col) + CELL_SEED);
+    }
+
+    /** Hash of an empty rows x cols board, keeps boards of different sizes apart. */
+    public static long sizeKey(int rows, int cols) {
+        return mix(((long) rows << 32 | cols) + SIZE_SEED);
+    }
+
+    // SplitMix64 finalizer: a bijection with good avalanche, so distinct inputs never collide
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Plays random games with random undos and redos and checks after every step that an
+ * undo or redo brings back the board and pool it should, that the pool keeps its size
+ * and that the placement index matches one built from the cells. Each game's move log
+ * has to replay to the same board and result.
+ *
+ * Usage: java MoveHistoryTest [games] [seed]
+ */
+public class MoveHistoryTest {
+    // A board and pool to compare with after an undo or redo
+    private static final class Snapshot {
+        final GameBoard board;
+        final List<Piece> pool;
+
+        Snapshot(PentominoGame game) {
+            board = new GameBoard(game.getBoard().getRows(), game.getBoard().getCols());
+            board.copyFrom(game.getBoard());
+            pool = new ArrayList<>(game.getPiecePool().getAvailablePieces());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        int[][] sizes = {{10, 10}, {5, 12}, {7, 3}, {30, 40}};
+
+        Random random = new Random(seed);
+        Path logs = Files.createTempDirectory("history-test");
+        long steps = 0;
+        long undos = 0;
+        long redos = 0;
+        try {
+            for (int[] size : sizes) {
+                for (int number = 0; number < games; number++) {
+                    String where = size[0] + "x" + size[1] + " game " + number;
+                    ManualClock clock = new ManualClock();
+                    PentominoGame game = new PentominoGame(clock,
+                            new RandomPieceSource(new Random(random.nextLong())), size[0], size[1]);
+                    game.setSolverBudgetMillis(0);
+                    MoveLogWriter log = new MoveLogWriter(logs, number);
+                    game.setRecorder(log);
+                    game.startGame();
+                    int poolSize = game.getPiecePool().getAvailablePieces().size();
+
+                    // What an undo or a redo should bring back, kept in step with the game's history
+                    ArrayDeque<Snapshot> undoStates = new ArrayDeque<>();
+                    ArrayDeque<Snapshot> redoStates = new ArrayDeque<>();
+                    while (!game.isGameOver()) {
+                        clock.advance(100 + random.nextInt(1500));
+                        if (!game.canUndo()) {
+                            undoStates.clear(); // A pool refresh forgets the history
+                        }
+                        if (!game.canRedo()) {
+                            redoStates.clear();
+                        }
+                        if (game.isGameOver()) {
+                            break;
+                        }
+
+                        int op = random.nextInt(10);
+                        if (op < 2 && game.canUndo()) {
+                            redoStates.push(new Snapshot(game));
+                            game.undo();
+                            undos++;
+                            checkRestored(undoStates.pop(), game, where + ", undo");
+                        } else if (op < 3 && game.canRedo()) {
+                            undoStates.push(new Snapshot(game));
+                            game.redo();
+                            redos++;
+                            checkRestored(redoStates.pop(), game, where + ", redo");
+                        } else {
+                            Snapshot before = new Snapshot(game);
+                            if (SelfPlaySimulator.makeRandomMove(game, random)) {
+                                undoStates.push(before);
+                                redoStates.clear();
+                            }
+                        }
+                        steps++;
+
+                        if (!game.isGameOver()) {
+                            TestAssert.checkEqual(poolSize, game.getPiecePool().getAvailablePieces().size(),
+                                    where + ", pool size");
+                        }
+                        checkIndex(game.getBoard(), where);
+                    }
+                    log.close();
+
+                    // The log has to replay the undos and redos to the same end
+                    GameReplay replay = GameReplay.open(log.getCurrentFile());
+                    replay.runToEnd();
+                    TestAssert.check(sameCells(replay.getBoard(), game.getBoard()) && replay.didWin() == game.didWin(),
+                            where + ": replay ends differently");
+                    Files.delete(log.getCurrentFile());
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(logs)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(logs);
+        }
+        System.out.printf("%d steps checked (%d undos, %d redos)%n", steps, undos, redos);
+    }
+
+    private static void checkRestored(Snapshot expected, PentominoGame game, String where) {
+        TestAssert.check(sameCells(expected.board, game.getBoard()), where + ": board differs");
+        // A redo that ends the game leaves the pool as it is
+        if (!game.isGameOver()) {
+            TestAssert.check(expected.pool.equals(game.getPiecePool().getAvailablePieces()), where + ": pool differs");
+        }
+    }
+
+    private static boolean sameCells(GameBoard a, GameBoard b) {
+        for (int r = 0; r < a.getRows(); r++) {
+            for (int c = 0; c < a.getCols(); c++) {
+                if (a.isOccupied(r, c) != b.isOccupied(r, c)) {
+                    return false;
+                }
+            }
+        }
+        return a.getHash() == b.getHash();
+    }
+
+    // The board's incrementally kept placement index against one built from its cells
+    private static void checkIndex(GameBoard board, String where) {
+        GameBoard fresh = new GameBoard(board.getRows(), board.getCols());
+        int slot = fresh.newSlot(PiecePalette.NEUTRAL);
+        for (int r = 0; r < board.getRows(); r++) {
+            for (int c = 0; c < board.getCols(); c++) {
+                if (board.isOccupied(r, c)) {
+                    fresh.setCell(r, c, slot);
+                }
+            }
+        }
+        PlacementIndex kept = board.getPlacementIndex();
+        PlacementIndex built = fresh.getPlacementIndex();
+        TestAssert.checkEqual(built.getEmptyCells(), kept.getEmptyCells(), where + ", empty cells indexed");
+        for (int o = 0; o < PentominoType.getOrientationTotal(); o++) {
+            if (kept.getAnchorCount(o) != built.getAnchorCount(o)) {
+                TestAssert.checkEqual(built.getAnchorCount(o), kept.getAnchorCount(o),
+                        where + ", anchors of orientation " + o);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,135 @@
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks the regions a board's RegionTracker keeps against a plain flood fill of the
+ * board after every step of random games. Placements split regions, undos merge them,
+ * and single filled cells and board copies reach states placements alone do not.
+ *
+ * Usage: java RegionTrackerTest [games] [seed]
+ */
+public class RegionTrackerTest {
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        int[][] sizes = {{10, 10}, {6, 10}, {7, 3}, {20, 20}, {3, 40}, {1, 5}};
+
+        Set<Long> shapes = new HashSet<>();
+        for (PentominoType type : PentominoType.values()) {
+            for (int i = 0; i < type.getOrientationCount(false); i++) {
+                shapes.add(type.getOrientation(i).getMask());
+            }
+        }
+
+        Random random = new Random(seed);
+        long steps = 0;
+        for (int[] size : sizes) {
+            int rows = size[0];
+            int cols = size[1];
+            for (int game = 0; game < games; game++) {
+                GameBoard board = new GameBoard(rows, cols);
+                ArrayDeque<Piece> placed = new ArrayDeque<>();
+                ArrayDeque<Integer> anchors = new ArrayDeque<>();
+                int blockerSlot = 0; // Shared by the single filled cells, taken with the first
+                for (int step = 0; step < 120; step++) {
+                    int op = random.nextInt(10);
+                    if (op < 3 && !placed.isEmpty()) {
+                        int anchor = anchors.pop();
+                        board.remove(placed.pop(), anchor / cols, anchor % cols);
+                    } else if (op == 3) {
+                        int cell = random.nextInt(rows * cols);
+                        if (!board.isOccupied(cell / cols, cell % cols)) {
+                            if (blockerSlot == 0) {
+                                blockerSlot = board.newSlot(PiecePalette.NEUTRAL);
+                            }
+                            board.setCell(cell / cols, cell % cols, blockerSlot);
+                        }
+                    } else if (op == 4) {
+                        GameBoard copy = new GameBoard(rows, cols);
+                        copy.copyFrom(board);
+                        board = copy;
+                    } else {
+                        Piece piece = new Piece(PentominoType.values()[random.nextInt(PentominoType.values().length)],
+                                PiecePalette.NEUTRAL);
+                        piece.setOrientation(random.nextInt(piece.getType().getOrientationCount(false)));
+                        int orientation = piece.getOrientation().getIndex();
+                        PlacementIndex index = board.getPlacementIndex();
+                        int count = index.getAnchorCount(orientation);
+                        if (count > 0) {
+                            int anchor = -1;
+                            for (int skip = random.nextInt(count); skip >= 0; skip--) {
+                                anchor = index.nextLegalAnchor(orientation, anchor + 1);
+                            }
+                            board.place(piece, anchor / cols, anchor % cols);
+                            placed.push(piece);
+                            anchors.push(anchor);
+                        }
+                    }
+
+                    steps++;
+                    checkAgainstFloodFill(board, shapes, rows + "x" + cols + " game " + game + " step " + step);
+                }
+            }
+        }
+        System.out.printf("%d steps checked%n", steps);
+    }
+
+    private static void checkAgainstFloodFill(GameBoard board, Set<Long> shapes, String where) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        RegionTracker tracker = board.getRegionTracker();
+        boolean[] seen = new boolean[rows * cols];
+        int[] queue = new int[rows * cols];
+        int regions = 0;
+        int deadRegions = 0;
+
+        for (int start = 0; start < rows * cols; start++) {
+            if (seen[start] || board.isOccupied(start / cols, start % cols)) {
+                continue;
+            }
+            seen[start] = true;
+            queue[0] = start;
+            int size = 1;
+            int minRow = rows;
+            int minCol = cols;
+            for (int head = 0; head < size; head++) {
+                int r = queue[head] / cols;
+                int c = queue[head] % cols;
+                minRow = Math.min(minRow, r);
+                minCol = Math.min(minCol, c);
+                int[][] neighbours = {{r - 1, c}, {r + 1, c}, {r, c - 1}, {r, c + 1}};
+                for (int[] n : neighbours) {
+                    if (n[0] >= 0 && n[0] < rows && n[1] >= 0 && n[1] < cols
+                            && !seen[n[0] * cols + n[1]] && !board.isOccupied(n[0], n[1])) {
+                        seen[n[0] * cols + n[1]] = true;
+                        queue[size++] = n[0] * cols + n[1];
+                    }
+                }
+            }
+
+            boolean dead = size % 5 != 0;
+            if (size == 5) {
+                long mask = 0;
+                for (int i = 0; i < size; i++) {
+                    mask |= 1L << ((queue[i] / cols - minRow) * 8 + queue[i] % cols - minCol);
+                }
+                dead = !shapes.contains(mask);
+            }
+            regions++;
+            if (dead) {
+                deadRegions++;
+            }
+            for (int i = 0; i < size; i++) {
+                int trackedSize = tracker.getRegionSize(queue[i] / cols, queue[i] % cols);
+                if (trackedSize != size) {
+                    TestAssert.checkEqual(size, trackedSize, where + ", region size of cell "
+                            + queue[i] / cols + "," + queue[i] % cols);
+                }
+            }
+        }
+        TestAssert.checkEqual(regions, tracker.getRegionCount(), where + ", region count");
+        TestAssert.checkEqual(deadRegions, tracker.getDeadRegionCount(), where + ", dead region count");
+    }
+}
\ No newline at end of file
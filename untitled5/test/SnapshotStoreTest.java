@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Runs random saves, deletes and loads on stores for several board sizes and checks
+ * each result against a map of the games saved under each id, then loads every save
+ * again after the file is reopened. A game of another size must be refused.
+ *
+ * Usage: java SnapshotStoreTest [operations]
+ */
+public class SnapshotStoreTest {
+    public static void main(String[] args) throws IOException {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 6000;
+        int[][] sizes = {{10, 10}, {5, 12}, {40, 40}, {7, 3}};
+
+        Path file = Files.createTempFile("snapshots", ".bin");
+        try {
+            for (int[] size : sizes) {
+                int rows = size[0];
+                int cols = size[1];
+                String where = rows + "x" + cols;
+                Files.write(file, new byte[0]); // An empty file makes a new store
+                Random random = new Random(rows * 100L + cols);
+                Map<Long, PentominoGame> saved = new HashMap<>();
+
+                try (SnapshotStore store = new SnapshotStore(file, rows, cols)) {
+                    for (int op = 0; op < operations; op++) {
+                        long sessionId = random.nextInt(operations / 2) - operations / 4;
+                        int kind = random.nextInt(10);
+                        if (kind < 5) {
+                            PentominoGame game = randomGame(rows, cols, random);
+                            store.save(sessionId, game);
+                            saved.put(sessionId, game);
+                        } else if (kind < 7) {
+                            boolean existed = saved.remove(sessionId) != null;
+                            TestAssert.check(store.delete(sessionId) == existed,
+                                    where + ": delete of session " + sessionId + " should return " + existed);
+                        } else {
+                            checkLoad(store, sessionId, saved.get(sessionId), rows, cols, where);
+                        }
+                        TestAssert.checkEqual(saved.size(), store.size(), where + ", sessions stored");
+                    }
+
+                    try {
+                        store.save(Long.MIN_VALUE, randomGame(rows + 1, cols, random));
+                        throw new AssertionError(where + ": a game of another size was saved");
+                    } catch (IllegalArgumentException expected) {
+                        TestAssert.checkEqual(saved.size(), store.size(), where + ", sessions after a refused save");
+                    }
+                }
+
+                try (SnapshotStore store = new SnapshotStore(file, rows, cols)) {
+                    TestAssert.checkEqual(saved.size(), store.size(), where + ", sessions after reopening");
+                    for (Map.Entry<Long, PentominoGame> entry : saved.entrySet()) {
+                        checkLoad(store, entry.getKey(), entry.getValue(), rows, cols, where + " reopened");
+                    }
+                }
+                System.out.printf("%s: %d operations, %d sessions saved%n", where, operations, saved.size());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static PentominoGame randomGame(int rows, int cols, Random random) {
+        PentominoGame game = new PentominoGame(new ManualClock(),
+                new RandomPieceSource(new Random(random.nextLong())), rows, cols);
+        game.setSolverBudgetMillis(0);
+        game.startGame();
+        int moves = random.nextInt(30);
+        for (int move = 0; move < moves && !game.isGameOver(); move++) {
+            SelfPlaySimulator.makeRandomMove(game, random);
+            for (Piece piece : game.getPiecePool().getAvailablePieces()) {
+                if (random.nextBoolean()) {
+                    game.rotatePiece(piece, true);
+                }
+            }
+        }
+        return game;
+    }
+
+    // Loading sessionId has to give a game in the same state as expected, or fail if that is null
+    private static void checkLoad(SnapshotStore store, long sessionId, PentominoGame expected,
+                                  int rows, int cols, String where) {
+        PentominoGame game = new PentominoGame(new ManualClock(), new RandomPieceSource(), rows, cols);
+        boolean loaded = store.load(sessionId, game);
+        TestAssert.check(loaded == (expected != null),
+                where + ": load of session " + sessionId + " should return " + (expected != null));
+        if (loaded) {
+            checkSameState(expected, game, where + ", session " + sessionId);
+        }
+    }
+
+    private static void checkSameState(PentominoGame expected, PentominoGame actual, String where) {
+        GameBoard a = expected.getBoard();
+        GameBoard b = actual.getBoard();
+        // Slots are numbered afresh on load, so only which cells share a piece has to match
+        Map<Integer, Integer> slots = new HashMap<>();
+        for (int r = 0; r < a.getRows(); r++) {
+            for (int c = 0; c < a.getCols(); c++) {
+                int slot = a.getCell(r, c);
+                int loaded = b.getCell(r, c);
+                if ((slot == 0) != (loaded == 0) || a.isOccupied(r, c) != b.isOccupied(r, c)) {
+                    throw new AssertionError(where + ": cell " + r + "," + c + " differs");
+                }
+                if (slot != 0 && (slots.computeIfAbsent(slot, s -> loaded) != loaded
+                        || a.getSlotColorIndex(slot) != b.getSlotColorIndex(loaded))) {
+                    throw new AssertionError(where + ": the piece at " + r + "," + c + " differs");
+                }
+            }
+        }
+        TestAssert.check(new HashSet<>(slots.values()).size() == slots.size(), where + ": pieces merged on load");
+        for (int o = 0; o < PentominoType.getOrientationTotal(); o++) {
+            TestAssert.checkEqual(a.getPlacementIndex().getAnchorCount(o), b.getPlacementIndex().getAnchorCount(o),
+                    where + ", anchors of orientation " + o);
+        }
+
+        List<Piece> pool = expected.getPiecePool().getAvailablePieces();
+        List<Piece> loadedPool = actual.getPiecePool().getAvailablePieces();
+        TestAssert.checkEqual(pool.size(), loadedPool.size(), where + ", pool size");
+        for (int i = 0; i < pool.size(); i++) {
+            TestAssert.check(pool.get(i).getOrientation() == loadedPool.get(i).getOrientation(),
+                    where + ": pool piece " + i + " is " + loadedPool.get(i).getOrientation()
+                            + ", not " + pool.get(i).getOrientation());
+            TestAssert.checkEqual(pool.get(i).getColorIndex(), loadedPool.get(i).getColorIndex(),
+                    where + ", color of pool piece " + i);
+        }
+        TestAssert.checkEqual(expected.getTimeRemaining(), actual.getTimeRemaining(), where + ", time remaining");
+        TestAssert.checkEqual(expected.getTicks(), actual.getTicks(), where + ", ticks");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,20 @@
+/**
+ * Checks for the test programs in this source root. Each test is a main() that stops
+ * with an AssertionError at the first failed check, so a failing run exits non-zero.
+ */
+final class TestAssert {
+    private TestAssert() {
+    }
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    static void checkEqual(long expected, long actual, String what) {
+        if (expected != actual) {
+            throw new AssertionError(what + ": expected " + expected + ", was " + actual);
+        }
+    }
+}
\ No newline at end of file